@@ -0,0 +1,165 @@
+package stream.flarebot.flarebot.commands;
+
+import net.dv8tion.jda.core.entities.Member;
+import net.dv8tion.jda.core.entities.Message;
+import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+import stream.flarebot.flarebot.permissions.Permission;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the old linear scan in {@link CommandManager#getCommand(String, User)} with {@link CommandIndex} on a
+ * command set about the size of the real one. Admin lookups check the secret commands first like the real thing.
+ * <p>
+ * Run with {@code ./gradlew jmh}, use {@code -prof gc} to see the allocations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CommandLookupBenchmark {
+
+    private static final int COMMANDS = 150;
+    private static final int SECRET_COMMANDS = 15;
+
+    /**
+     * first and last are command names at either end of the list, alias is an alias in the middle in another case
+     * and miss isn't a command.
+     */
+    @Param({"first", "last", "alias", "miss"})
+    public String lookup;
+
+    @Param({"false", "true"})
+    public boolean admin;
+
+    private List<Command> commands;
+    private CommandIndex publicIndex;
+    private CommandIndex secretIndex;
+    private String name;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        commands = new ArrayList<>();
+        for (int i = 0; i < COMMANDS; i++)
+            commands.add(new BenchmarkCommand("command" + i, i < SECRET_COMMANDS ? CommandType.SECRET
+                    : CommandType.GENERAL, "cmd" + i, "c" + i, "alias" + i));
+        publicIndex = new CommandIndex(commands.stream().filter(c -> c.getType() != CommandType.SECRET)
+                .collect(Collectors.toList()));
+        secretIndex = new CommandIndex(commands.stream().filter(c -> c.getType() == CommandType.SECRET)
+                .collect(Collectors.toList()));
+        switch (lookup) {
+            case "first":
+                name = "command" + SECRET_COMMANDS;
+                break;
+            case "last":
+                name = "command" + (COMMANDS - 1);
+                break;
+            case "alias":
+                name = "ALIAS" + (COMMANDS / 2);
+                break;
+            default:
+                name = "notacommand";
+        }
+    }
+
+    @Benchmark
+    public Command linearScan() {
+        if (admin) {
+            for (Command cmd : getCommandsByType(CommandType.SECRET)) {
+                if (cmd.getCommand().equalsIgnoreCase(name))
+                    return cmd;
+                for (String alias : cmd.getAliases())
+                    if (alias.equalsIgnoreCase(name)) return cmd;
+            }
+        }
+        for (Command cmd : commands) {
+            if (cmd.getType() == CommandType.SECRET) continue;
+            if (cmd.getCommand().equalsIgnoreCase(name))
+                return cmd;
+            for (String alias : cmd.getAliases())
+                if (alias.equalsIgnoreCase(name)) return cmd;
+        }
+        return null;
+    }
+
+    @Benchmark
+    public Command index() {
+        if (admin) {
+            Command secret = secretIndex.get(name);
+            if (secret != null)
+                return secret;
+        }
+        return publicIndex.get(name);
+    }
+
+    private Set<Command> getCommandsByType(CommandType type) {
+        return commands.stream().filter(command -> command.getType() == type).collect(Collectors.toSet());
+    }
+
+    private static class BenchmarkCommand implements Command {
+
+        private final String command;
+        private final CommandType type;
+        private final String[] aliases;
+
+        private BenchmarkCommand(String command, CommandType type, String... aliases) {
+            this.command = command;
+            this.type = type;
+            this.aliases = aliases;
+        }
+
+        @Override
+        public void onCommand(User sender, GuildWrapper guild, TextChannel channel, Message message, String[] args,
+                              Member member) {
+        }
+
+        @Override
+        public String getCommand() {
+            return command;
+        }
+
+        @Override
+        public String getDescription() {
+            return "";
+        }
+
+        @Override
+        public String getUsage() {
+            return "";
+        }
+
+        @Override
+        public CommandType getType() {
+            return type;
+        }
+
+        @Override
+        public Permission getPermission() {
+            return null;
+        }
+
+        @Override
+        public String[] getAliases() {
+            // Most commands build a new array on every call, like this.
+            return aliases.clone();
+        }
+    }
+}
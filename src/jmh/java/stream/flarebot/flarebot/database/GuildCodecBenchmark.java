@@ -0,0 +1,136 @@
+package stream.flarebot.flarebot.database;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the Gson text storage with {@link GuildCodec} on synthetic guilds. Sizes are printed on setup.
+ * <p>
+ * Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GuildCodecBenchmark {
+
+    /**
+     * Roughly how many tags, warnings, users etc the guild has.
+     */
+    @Param({"100", "5000"})
+    public int size;
+
+    private GuildWrapper wrapper;
+    private String json;
+    private byte[] binary;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        // Built through Gson so nothing needs the bot config, which also means staying clear of DataHandler.
+        wrapper = GuildGson.GSON.fromJson(createGuild(size), GuildWrapper.class);
+        json = GuildGson.GSON.toJson(wrapper);
+        binary = GuildCodec.encode(wrapper);
+        System.out.println("\nsize=" + size + " json=" + json.getBytes().length + " bytes, binary=" + binary.length
+                + " bytes");
+    }
+
+    @Benchmark
+    public String encodeJson() {
+        return GuildGson.GSON.toJson(wrapper);
+    }
+
+    @Benchmark
+    public byte[] encodeBinary() {
+        return GuildCodec.encode(wrapper);
+    }
+
+    @Benchmark
+    public GuildWrapper decodeJson() {
+        return GuildGson.GSON.fromJson(json, GuildWrapper.class);
+    }
+
+    @Benchmark
+    public GuildWrapper decodeBinary() {
+        return GuildCodec.decode(binary);
+    }
+
+    private static JsonObject createGuild(int size) {
+        JsonObject guild = new JsonObject();
+        guild.addProperty("dataVersion", GuildWrapper.DATA_VERSION);
+        guild.addProperty("guildId", 221772130054701056L);
+        guild.addProperty("prefix", "_");
+        guild.addProperty("songnick", false);
+        guild.addProperty("blocked", false);
+        guild.addProperty("unBlockTime", -1);
+
+        JsonObject tags = new JsonObject();
+        for (int i = 0; i < size; i++)
+            tags.addProperty("tag" + i, "This is tag number " + i + " with a link https://flarebot.stream/tags/" + i);
+        guild.add("tags", tags);
+
+        JsonObject warnings = new JsonObject();
+        for (int i = 0; i < size; i++) {
+            JsonArray userWarnings = new JsonArray();
+            for (int j = 0; j < 3; j++)
+                userWarnings.add("Warning " + j + " for spamming in #general");
+            warnings.add(String.valueOf(215644829969809421L + i), userWarnings);
+        }
+        guild.add("warnings", warnings);
+
+        JsonArray groups = new JsonArray();
+        for (int i = 0; i < Math.max(1, size / 100); i++) {
+            JsonObject group = new JsonObject();
+            group.addProperty("name", "Group" + i);
+            group.addProperty("roleId", String.valueOf(320304773053382656L + i));
+            JsonArray permissions = new JsonArray();
+            for (int j = 0; j < 20; j++)
+                permissions.add("flarebot.command" + j);
+            group.add("permissions", permissions);
+            groups.add(group);
+        }
+        JsonObject users = new JsonObject();
+        for (int i = 0; i < size; i++) {
+            JsonObject user = new JsonObject();
+            JsonArray userGroups = new JsonArray();
+            userGroups.add("Group" + (i % groups.size()));
+            user.add("groups", userGroups);
+            user.add("permissions", new JsonArray());
+            users.add(String.valueOf(215644829969809421L + i), user);
+        }
+        JsonObject permissions = new JsonObject();
+        permissions.add("groups", groups);
+        permissions.add("users", users);
+        guild.add("permissions", permissions);
+
+        JsonArray reports = new JsonArray();
+        for (int i = 0; i < size / 10; i++) {
+            JsonObject report = new JsonObject();
+            report.addProperty("id", i + 1);
+            report.addProperty("message", "User " + i + " was being rude in voice chat");
+            report.addProperty("reporterId", String.valueOf(215644829969809421L + i));
+            report.addProperty("reportedId", String.valueOf(215644829969809421L + i + 1));
+            report.addProperty("status", "OPEN");
+            report.add("messages", new JsonArray());
+            reports.add(report);
+        }
+        JsonObject reportManager = new JsonObject();
+        reportManager.add("reports", reports);
+        guild.add("reportManager", reportManager);
+        return guild;
+    }
+}
@@ -23,6 +23,7 @@ import net.dv8tion.jda.core.utils.SessionControllerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stream.flarebot.flarebot.database.RedisController;
+import stream.flarebot.flarebot.metrics.Metrics;
 import stream.flarebot.flarebot.mod.nino.NINOListener;
 import stream.flarebot.flarebot.music.PlayerListener;
 import stream.flarebot.flarebot.scheduler.Scheduler;
@@ -95,17 +96,31 @@ public class Client {
         registerListener(new NINOListener());
         setGame();
 
+        // Before prewarming so guilds can be loaded from the Redis guild cache.
         new RedisController();
+        DataHandler.getRedisCache().start();
+
+        for (JDA shard : shardManager.getShards())
+            DataHandler.prewarm(shard);
 
         logger.info("FlareBot started!");
     }
 
     protected void stop() {
-        DataHandler.getGuilds().invalidateAll();
+        // Stop anything which could change guilds first, changes made during or after the flush would be lost.
+        shardManager.removeEventListener(listeners.toArray(new Object[]{}));
         for (ScheduledFuture<?> scheduledFuture : Scheduler.getTasks().values())
             scheduledFuture.cancel(false);
-        shardManager.removeEventListener(listeners.toArray(new Object[]{}));
+        // Write everything that changed, clearing the cache would only queue the guilds for a flush which never comes.
+        if (DataHandler.getGuildFlusher().flushAll(Config.INS.getShutdownFlushTimeout())) {
+            DataHandler.writeSnapshot();
+        } else {
+            // Writes which were still running already took the changes, the snapshot would record them as saved.
+            logger.warn("Not writing the guild snapshot since not every guild was written");
+        }
         shardManager.shutdown();
+        // Last so the flush can still be watched.
+        Metrics.stop();
     }
 
     private Lavalink setupMusic() {
@@ -19,6 +19,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 public class Config {
@@ -76,7 +77,25 @@ public class Config {
     private int redisPort;
     @Nullable
     private String redisPassword;
+    private int redisGuildCacheTtl;
+    private int redisWriteWorkers;
+    private int redisWriteQueueSize;
+    private double redisTraceSampleRate;
+    private boolean binaryRedisMessages;
+    private boolean localMessageCache;
+    private int messageCacheSize;
+    private int messageCacheChannelSize;
+    private int commandWorkers;
+    private int commandQueueSize;
     private int hikariPoolSize;
+    private long shutdownFlushTimeout;
+    private long guildCacheMaxSize;
+    @Nullable
+    private String guildSnapshotFile;
+    private long guildSnapshotMaxAge;
+    private boolean binaryGuildData;
+
+    private int metricsPort;
 
     // Hooks and test bot
     private String errorLogWebhook;
@@ -177,10 +196,28 @@ public class Config {
 
             if (redisHost == null || redisHost.isEmpty())
                 log.warn("Redis details not provided! Modlog will not catch message edits and deletions!");
+            redisGuildCacheTtl = (int) config.getOrDefault("redisGuildCacheTtl", 0);
+            redisWriteWorkers = (int) config.getOrDefault("redisWriteWorkers", 2);
+            redisWriteQueueSize = (int) config.getOrDefault("redisWriteQueueSize", 10000);
+            redisTraceSampleRate = ((Number) config.getOrDefault("redisTraceSampleRate", 0)).doubleValue();
+            binaryRedisMessages = !"json".equalsIgnoreCase((String) config.getOrDefault("redisMessageFormat", "binary"));
+            localMessageCache = "local".equalsIgnoreCase((String) config.getOrDefault("messageCache", "redis"));
+            messageCacheSize = ((int) config.getOrDefault("messageCacheSize", 64)) * 1024 * 1024;
+            messageCacheChannelSize = (int) config.getOrDefault("messageCacheChannelSize", 128);
+
+            commandWorkers = (int) config.getOrDefault("commandWorkers", 4);
+            commandQueueSize = (int) config.getOrDefault("commandQueueSize", 5);
 
             hikariPoolSize = (int) config.getOrDefault("hikariPoolSize", 10);
             log.info("Hikari max pool size set to " + hikariPoolSize);
+            guildCacheMaxSize = ((int) config.getOrDefault("guildCacheMaxSize", 512)) * 1024L * 1024L;
+            guildSnapshotFile = (String) config.getOrDefault("guildSnapshotFile", null);
+            guildSnapshotMaxAge = TimeUnit.SECONDS.toMillis((int) config.getOrDefault("guildSnapshotMaxAge", 900));
+            shutdownFlushTimeout = TimeUnit.SECONDS.toMillis((int) config.getOrDefault("shutdownFlushTimeout", 30));
+
+            binaryGuildData = "binary".equalsIgnoreCase((String) config.getOrDefault("guildDataFormat", "json"));
 
+            metricsPort = (int) config.getOrDefault("metricsPort", -1);
 
             errorLogWebhook = (String) config.getOrDefault("errorLogWebhook", "");
             importantLogWebhook = (String) config.getOrDefault("importantLogWebhook", "");
@@ -286,10 +323,122 @@ public class Config {
         return redisPassword;
     }
 
+    /**
+     * How long guilds are kept in Redis for in seconds, 0 if guilds shouldn't be cached in Redis.
+     */
+    public int getRedisGuildCacheTtl() {
+        return redisGuildCacheTtl;
+    }
+
+    /**
+     * The amount of threads which send queued Redis writes.
+     */
+    public int getRedisWriteWorkers() {
+        return redisWriteWorkers;
+    }
+
+    /**
+     * The amount of Redis writes which can be queued, writes are dropped once the queue is full.
+     */
+    public int getRedisWriteQueueSize() {
+        return redisWriteQueueSize;
+    }
+
+    /**
+     * The share of Redis commands which are logged, from 0 to 1.
+     */
+    public double getRedisTraceSampleRate() {
+        return redisTraceSampleRate;
+    }
+
+    /**
+     * If messages should be cached in Redis with {@link stream.flarebot.flarebot.database.RedisMessageCodec} rather
+     * than as JSON. Messages cached in either format are always read.
+     */
+    public boolean useBinaryRedisMessages() {
+        return binaryRedisMessages;
+    }
+
+    /**
+     * If messages for the modlog should be cached in memory rather than in Redis.
+     */
+    public boolean useLocalMessageCache() {
+        return localMessageCache;
+    }
+
+    /**
+     * How much message content the local message cache keeps in bytes.
+     */
+    public int getMessageCacheSize() {
+        return messageCacheSize;
+    }
+
+    /**
+     * How many messages the local message cache keeps per channel.
+     */
+    public int getMessageCacheChannelSize() {
+        return messageCacheChannelSize;
+    }
+
+    /**
+     * The amount of threads which run commands.
+     */
+    public int getCommandWorkers() {
+        return commandWorkers;
+    }
+
+    /**
+     * How many commands a guild can have waiting to run, further commands are rejected.
+     */
+    public int getCommandQueueSize() {
+        return commandQueueSize;
+    }
+
     public int getHikariPoolSize() {
         return hikariPoolSize;
     }
 
+    /**
+     * The estimated amount of memory the guild cache can use in bytes, 0 if it is only limited by the expiry.
+     */
+    public long getGuildCacheMaxSize() {
+        return guildCacheMaxSize;
+    }
+
+    /**
+     * The file the guild cache is written to on shutdown and filled from on startup, null if this is disabled.
+     */
+    @Nullable
+    public String getGuildSnapshotFile() {
+        return guildSnapshotFile;
+    }
+
+    /**
+     * How long a guild snapshot can be used for after it was written in milliseconds.
+     */
+    public long getGuildSnapshotMaxAge() {
+        return guildSnapshotMaxAge;
+    }
+
+    /**
+     * How long to wait for changed guilds to be written when shutting down in milliseconds.
+     */
+    public long getShutdownFlushTimeout() {
+        return shutdownFlushTimeout;
+    }
+
+    /**
+     * If guilds should be stored with {@link stream.flarebot.flarebot.database.GuildCodec} rather than as JSON.
+     * Guilds stored in the other format are still read and get converted the next time they are saved.
+     */
+    public boolean useBinaryGuildData() {
+        return binaryGuildData;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
     public String getErrorLogWebhook() {
         return errorLogWebhook;
     }
@@ -1,27 +1,44 @@
 package stream.flarebot.flarebot;
 
-import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import net.dv8tion.jda.core.JDA;
+import net.dv8tion.jda.core.entities.ISnowflake;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
-import org.joda.time.DateTime;
 import stream.flarebot.flarebot.commands.*;
 import stream.flarebot.flarebot.database.DatabaseManager;
+import stream.flarebot.flarebot.database.GuildRedisCache;
+import stream.flarebot.flarebot.database.GuildSnapshot;
+import stream.flarebot.flarebot.database.LocalMessageCache;
+import stream.flarebot.flarebot.database.MessageCache;
+import stream.flarebot.flarebot.database.RedisMessageCache;
+import stream.flarebot.flarebot.metrics.CacheCollector;
 import stream.flarebot.flarebot.objects.GuildWrapper;
-import stream.flarebot.flarebot.scheduler.FutureAction;
+import stream.flarebot.flarebot.scheduler.FutureActionScheduler;
 import stream.flarebot.flarebot.util.ConfirmUtil;
 import stream.flarebot.flarebot.util.MessageUtils;
+import stream.flarebot.flarebot.util.general.MusicUtils;
 import stream.flarebot.flarebot.util.objects.RunnableWrapper;
 
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -30,52 +47,171 @@ public class DataHandler {
     public static final char[] ALLOWED_SPECIAL_CHARACTERS = {'$', '_', ' ', '&', '%', '£', '!', '*', '@', '#', ':'};
     public static final Pattern ALLOWED_CHARS_REGEX = Pattern.compile("[\\w" + new String(ALLOWED_SPECIAL_CHARACTERS) + "\\p{Ll}\\p{Lu}\\p{Lt}\\p{Lm}\\p{Lo}]{3,32}");
 
-    public static final Gson gson = new GsonBuilder().create();
+    private static final int PREWARM_BATCH_SIZE = 500;
+    private static final int PLAYLIST_PAGE_SIZE = 100;
+    private static final ExecutorService PREWARM_POOL = Executors.newSingleThreadExecutor(r ->
+            new Thread(r, "Guild-Prewarm"));
 
-    private static final Cache<Long, GuildWrapper> guilds = Caffeine.newBuilder()
-            .expireAfterAccess(15, TimeUnit.MINUTES)
-            .recordStats()
-            .removalListener(new GuildSaveListener())
-            .build();
+    private static final LoadingCache<Long, GuildWrapper> guilds = createGuildCache();
+    private static final GuildFlusher flusher = new GuildFlusher(guilds);
+    private static final GuildRedisCache redisCache = new GuildRedisCache(DataHandler::evictIfUnchanged);
+    private static final MessageCache messageCache = Config.INS.useLocalMessageCache()
+            ? new LocalMessageCache(Config.INS.getMessageCacheSize(), Config.INS.getMessageCacheChannelSize())
+            : new RedisMessageCache();
+    private static final Map<Long, CompletableFuture<GuildWrapper>> loading = new ConcurrentHashMap<>();
+    private static final PrefixIndex prefixIndex = new PrefixIndex();
+    private static volatile GuildSnapshot snapshot;
+
+    private static LoadingCache<Long, GuildWrapper> createGuildCache() {
+        Caffeine<Long, GuildWrapper> builder = Caffeine.newBuilder()
+                .expireAfterAccess(15, TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener(new GuildSaveListener());
+        // Bounded by the estimated size rather than the amount of guilds since a few big guilds can use more than
+        // thousands of small ones.
+        if (Config.INS.getGuildCacheMaxSize() > 0)
+            builder.maximumWeight(Config.INS.getGuildCacheMaxSize())
+                    .weigher((Long guildId, GuildWrapper wrapper) -> wrapper.getEstimatedSize());
+        return builder.build(new GuildLoader());
+    }
 
     public void init() {
-        DatabaseManager.run(conn -> {
-            conn.prepareCall("CREATE TABLE IF NOT EXISTS guilds (guild_id BIGINT, guild_data JSON, PRIMARY KEY (guild_id))").execute();
+        DatabaseManager.run("init", conn -> {
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS guilds (guild_id BIGINT, guild_data JSONB, PRIMARY KEY (guild_id))").execute();
+            ResultSet guildData = conn.prepareStatement("SELECT data_type FROM information_schema.columns " +
+                    "WHERE table_name = 'guilds' AND column_name = 'guild_data'").executeQuery();
+            // Needed for the partial updates, this rewrites the table so only do it once.
+            if (guildData.next() && guildData.getString("data_type").equalsIgnoreCase("json")) {
+                FlareBot.LOGGER.info("Converting guild_data to JSONB");
+                conn.prepareCall("ALTER TABLE guilds ALTER COLUMN guild_data TYPE JSONB USING guild_data::jsonb").execute();
+            }
+            conn.prepareCall("ALTER TABLE guilds ADD COLUMN IF NOT EXISTS guild_blob BYTEA").execute();
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS tags (guild_id BIGINT, tag_name TEXT, content TEXT, PRIMARY KEY (guild_id, tag_name))").execute();
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS warnings (id BIGSERIAL PRIMARY KEY, guild_id BIGINT NOT NULL, user_id BIGINT NOT NULL, reason TEXT, created_at TIMESTAMP)").execute();
+            conn.prepareCall("CREATE INDEX IF NOT EXISTS warnings_guild_user ON warnings (guild_id, user_id, id)").execute();
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS reports (guild_id BIGINT, report_id INT, message TEXT, reporter_id BIGINT, reported_id BIGINT, time TIMESTAMP, status TEXT, messages JSON, PRIMARY KEY (guild_id, report_id))").execute();
             conn.prepareCall("CREATE TABLE IF NOT EXISTS playlists (playlist_name TEXT, guild_id BIGINT, owner BIGINT, songs TEXT, PRIMARY KEY (playlist_name, guild_id))").execute();
-            conn.prepareCall("CREATE TABLE IF NOT EXISTS future_tasks (guild_id BIGINT, channel_id BIGINT, responsible BIGINT, target BIGINT, content TEXT, expires_at TIMESTAMP, created_at TIMESTAMP, action TEXT)").execute();
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS playlist_tracks (guild_id BIGINT, playlist_name TEXT, ordinal INT, identifier TEXT, track BYTEA, PRIMARY KEY (guild_id, playlist_name, ordinal))").execute();
+            conn.prepareCall("CREATE TABLE IF NOT EXISTS future_tasks (task_id TEXT, guild_id BIGINT, channel_id BIGINT, responsible BIGINT, target BIGINT, content TEXT, expires_at TIMESTAMP, created_at TIMESTAMP, action TEXT)").execute();
+            conn.prepareCall("ALTER TABLE future_tasks ADD COLUMN IF NOT EXISTS task_id TEXT").execute();
+            // Tasks saved before they had IDs were identified by these, duplicates could have been saved before.
+            conn.prepareCall("UPDATE future_tasks SET task_id = guild_id || ':' || channel_id || ':' || " +
+                    "(extract(epoch FROM created_at) * 1000)::BIGINT WHERE task_id IS NULL").execute();
+            conn.prepareCall("DELETE FROM future_tasks a USING future_tasks b WHERE a.task_id = b.task_id AND a.ctid < b.ctid").execute();
+            conn.prepareCall("CREATE UNIQUE INDEX IF NOT EXISTS future_tasks_task_id ON future_tasks (task_id)").execute();
+            conn.prepareCall("CREATE INDEX IF NOT EXISTS future_tasks_expires_at ON future_tasks (expires_at, task_id)").execute();
         });
-        loadFutureTasks();
+        if (Config.INS.getGuildSnapshotFile() != null)
+            snapshot = GuildSnapshot.open(new File(Config.INS.getGuildSnapshotFile()), Config.INS.getGuildSnapshotMaxAge());
+        FutureActionScheduler.start();
+        flusher.start();
+        new CacheCollector("guild", guilds).register();
+    }
+
+    public static void saveGuild(long guildId) {
+        GuildWrapper wrapper = guilds.getIfPresent(guildId);
+        if (wrapper != null)
+            wrapper.markDirty();
+        flusher.flush();
+    }
+
+    /**
+     * Drop a guild from the cache after another process changed it, it is loaded again on the next access. Guilds
+     * with changes which haven't been written yet are kept, those changes would be lost otherwise.
+     *
+     * @param guildId The ID of the guild.
+     */
+    private static void evictIfUnchanged(long guildId) {
+        guilds.asMap().computeIfPresent(guildId, (id, wrapper) -> wrapper.isDirty() ? wrapper : null);
     }
 
-    public static void saveGuild(String guildId) {
-        guilds.invalidate(guildId);
+    /**
+     * Write the cached guilds to the snapshot file if it is enabled, this should be done after they have been
+     * flushed since guilds with unsaved changes are left out.
+     */
+    public static void writeSnapshot() {
+        if (Config.INS.getGuildSnapshotFile() != null)
+            GuildSnapshot.write(new File(Config.INS.getGuildSnapshotFile()), guilds.asMap().values());
     }
 
     public static GuildWrapper getGuild(Long guildId) {
-        String id = Long.toString(guildId);
-        AtomicReference<GuildWrapper> data = new AtomicReference<>(guilds.getIfPresent(guildId));
+        return guilds.get(guildId);
+    }
 
-        if (data.get() != null)
-            return data.get();
+    /**
+     * Get a guild without blocking. Cached guilds complete straight away, otherwise the guild is loaded on the
+     * database executor. Concurrent requests for a guild which is still loading share the same load.
+     *
+     * @param guildId The ID of the guild.
+     * @return A future which completes with the guild or exceptionally if it could not be loaded.
+     */
+    public static CompletableFuture<GuildWrapper> getGuildAsync(long guildId) {
+        GuildWrapper cached = guilds.getIfPresent(guildId);
+        if (cached != null)
+            return CompletableFuture.completedFuture(cached);
 
-        DatabaseManager.run(conn -> {
-            PreparedStatement ps = conn.prepareStatement("SELECT guild_data FROM guilds WHERE guild_id = ?");
-            ps.setLong(1, guildId);
-            ResultSet set = ps.executeQuery();
+        CompletableFuture<GuildWrapper> future = new CompletableFuture<>();
+        CompletableFuture<GuildWrapper> existing = loading.putIfAbsent(guildId, future);
+        if (existing != null)
+            return existing;
+        try {
+            DatabaseManager.getExecutor().execute(() -> {
+                try {
+                    future.complete(guilds.get(guildId));
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                } finally {
+                    loading.remove(guildId, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(guildId, future);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
 
-            if (set.isBeforeFirst() && set.next()) {
-                data.set(gson.fromJson(set.getString("guild_data"), GuildWrapper.class));
-            } else {
-                data.set(new GuildWrapper(guildId));
-            }
+    /**
+     * Run something with a guild once it is available, see {@link #getGuildAsync(long)}. This is what the event
+     * listeners use so they never block the JDA threads on the database. Any exception is logged.
+     *
+     * @param guildId The ID of the guild.
+     * @param action  What to run with the guild, this runs on the calling thread if the guild is cached.
+     */
+    public static void withGuild(long guildId, Consumer<GuildWrapper> action) {
+        getGuildAsync(guildId).thenAccept(action).whenComplete((v, e) -> {
+            if (e != null)
+                FlareBot.LOGGER.error("Failed to handle an event for guild " + guildId, e);
         });
+    }
+
+    /**
+     * Load every guild on a shard into the cache so the first command in each of them is a cache hit. Guilds are
+     * loaded in batches with one query each on a background thread, anything already cached is skipped.
+     *
+     * @param shard The shard to load the guilds for, this should be connected.
+     */
+    public static void prewarm(JDA shard) {
+        PREWARM_POOL.submit(() -> prewarmShard(shard));
+    }
 
-        guilds.put(guildId, data.get());
-        return data.get();
+    private static void prewarmShard(JDA shard) {
+        long start = System.currentTimeMillis();
+        List<Long> guildIds = shard.getGuildCache().stream().map(ISnowflake::getIdLong).collect(Collectors.toList());
+        for (int i = 0; i < guildIds.size(); i += PREWARM_BATCH_SIZE) {
+            try {
+                guilds.getAll(guildIds.subList(i, Math.min(i + PREWARM_BATCH_SIZE, guildIds.size())));
+            } catch (RuntimeException e) {
+                FlareBot.LOGGER.error("Failed to prewarm guilds for shard " + shard.getShardInfo(), e);
+                return;
+            }
+        }
+        FlareBot.LOGGER.info("Prewarmed {} guilds for shard {} in {}ms", guildIds.size(), shard.getShardInfo(),
+                System.currentTimeMillis() - start);
     }
 
-    public static void savePlaylist(Command command, TextChannel channel, String ownerId, boolean overwriteAllowed, String name, List<String> songs) {
-        DatabaseManager.run(connection -> {
+    public static void savePlaylist(Command command, TextChannel channel, String ownerId, boolean overwriteAllowed, String name, List<AudioTrack> tracks) {
+        DatabaseManager.run("playlists.save", connection -> {
             PreparedStatement savePlaylistStatement = connection.prepareStatement("SELECT * FROM playlists " +
                     "WHERE playlist_name = ? AND guild_id = ?");
 
@@ -94,23 +230,116 @@ public class DataHandler {
                     return;
                 }
             }
-            PreparedStatement insertPlaylistStatement = connection.prepareStatement("INSERT INTO playlists" +
-                        " (playlist_name, guild_id, owner, songs) VALUES (?, ?, ?, ?) ON CONFLICT (playlist_name, guild_id) DO UPDATE " +
-                    "SET songs = EXCLUDED.songs, owner = EXCLUDED.owner");
-
-            insertPlaylistStatement.setString(1, name);
-            insertPlaylistStatement.setLong(2, channel.getGuild().getIdLong());
-            insertPlaylistStatement.setLong(3, Long.parseLong(ownerId));
-            insertPlaylistStatement.setString(4, songs.toString());
-            insertPlaylistStatement.executeUpdate();
+            connection.setAutoCommit(false);
+            try {
+                // Tracks are stored in playlist_tracks now, songs is only set for playlists saved before that.
+                PreparedStatement insertPlaylistStatement = connection.prepareStatement("INSERT INTO playlists" +
+                        " (playlist_name, guild_id, owner, songs) VALUES (?, ?, ?, NULL) ON CONFLICT (playlist_name, guild_id) DO UPDATE " +
+                        "SET songs = EXCLUDED.songs, owner = EXCLUDED.owner");
+                insertPlaylistStatement.setString(1, name);
+                insertPlaylistStatement.setLong(2, channel.getGuild().getIdLong());
+                insertPlaylistStatement.setLong(3, Long.parseLong(ownerId));
+                insertPlaylistStatement.executeUpdate();
+
+                PreparedStatement deleteTracksStatement = connection.prepareStatement("DELETE FROM playlist_tracks " +
+                        "WHERE guild_id = ? AND playlist_name = ?");
+                deleteTracksStatement.setLong(1, channel.getGuild().getIdLong());
+                deleteTracksStatement.setString(2, name);
+                deleteTracksStatement.executeUpdate();
+
+                PreparedStatement insertTrackStatement = connection.prepareStatement("INSERT INTO playlist_tracks " +
+                        "(guild_id, playlist_name, ordinal, identifier, track) VALUES (?, ?, ?, ?, ?)");
+                for (int i = 0; i < tracks.size(); i++) {
+                    AudioTrack track = tracks.get(i);
+                    insertTrackStatement.setLong(1, channel.getGuild().getIdLong());
+                    insertTrackStatement.setString(2, name);
+                    insertTrackStatement.setInt(3, i);
+                    insertTrackStatement.setString(4, track.getInfo().uri);
+                    try {
+                        insertTrackStatement.setBytes(5, MusicUtils.encodeTrack(track));
+                    } catch (IOException e) {
+                        // Still saved with the identifier, it just can't be played without looking it up.
+                        insertTrackStatement.setBytes(5, null);
+                    }
+                    insertTrackStatement.addBatch();
+                }
+                insertTrackStatement.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
             channel.sendMessage(MessageUtils.getEmbed(Getters.getUserById(ownerId))
                     .setDescription("Successfully saved the playlist: " + MessageUtils.escapeMarkdown(name)).build()).queue();
         });
     }
 
+    /**
+     * Loads a saved playlist a page at a time, each page is handed over as soon as it is read so the first songs
+     * can be played while the rest is still loading. The tracks are stored encoded so they don't need to be
+     * looked up again.
+     *
+     * @param guildId The guild the playlist was saved in.
+     * @param name    The name of the playlist.
+     * @param page    Takes each page of tracks, in order.
+     * @return The amount of tracks loaded. 0 if the playlist doesn't exist or was saved before tracks were stored,
+     * see {@link #loadPlaylist(TextChannel, User, String)} for those.
+     */
+    public static int streamPlaylist(long guildId, String name, Consumer<List<AudioTrack>> page) {
+        Integer loaded = DatabaseManager.query("playlists.stream", connection -> {
+            // The driver only fetches rows in batches, instead of all at once, outside of auto commit.
+            connection.setAutoCommit(false);
+            try {
+                // Joined so tracks left behind by a playlist which no longer exists are never loaded.
+                PreparedStatement loadTracksStatement = connection.prepareStatement("SELECT t.identifier, t.track " +
+                        "FROM playlist_tracks t JOIN playlists p ON p.guild_id = t.guild_id AND p.playlist_name = " +
+                        "t.playlist_name WHERE t.guild_id = ? AND t.playlist_name = ? ORDER BY t.ordinal");
+                loadTracksStatement.setFetchSize(PLAYLIST_PAGE_SIZE);
+                loadTracksStatement.setLong(1, guildId);
+                loadTracksStatement.setString(2, name);
+                ResultSet set = loadTracksStatement.executeQuery();
+
+                List<AudioTrack> tracks = new ArrayList<>(PLAYLIST_PAGE_SIZE);
+                int count = 0;
+                int failed = 0;
+                while (set.next()) {
+                    byte[] data = set.getBytes("track");
+                    AudioTrack track = data == null ? null : MusicUtils.decodeTrack(data);
+                    if (track == null) {
+                        failed++;
+                        continue;
+                    }
+                    tracks.add(track);
+                    if (tracks.size() == PLAYLIST_PAGE_SIZE) {
+                        page.accept(tracks);
+                        count += tracks.size();
+                        tracks = new ArrayList<>(PLAYLIST_PAGE_SIZE);
+                    }
+                }
+                if (!tracks.isEmpty()) {
+                    page.accept(tracks);
+                    count += tracks.size();
+                }
+                if (failed > 0)
+                    FlareBot.LOGGER.warn("Failed to decode {} tracks in playlist {} for guild {}", failed, name, guildId);
+                connection.commit();
+                return count;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
+        return loaded == null ? 0 : loaded;
+    }
+
+    /**
+     * Loads a playlist saved before tracks were stored in playlist_tracks, these only have the song identifiers
+     * which need to be looked up again.
+     */
     public static ArrayList<String> loadPlaylist(TextChannel channel, User sender, String name) {
-        AtomicReference<ArrayList<String>> list = new AtomicReference<>(new ArrayList<>());
-        DatabaseManager.run(connection -> {
+        ArrayList<String> list = new ArrayList<>();
+        DatabaseManager.run("playlists.load", connection -> {
             PreparedStatement savePlaylistStatement = connection.prepareStatement("SELECT * FROM playlists " +
                     "WHERE playlist_name = ? AND guild_id = ?");
 
@@ -119,49 +348,63 @@ public class DataHandler {
             ResultSet set = savePlaylistStatement.executeQuery();
             if (set.isBeforeFirst() && set.next()) {
                 String songs = set.getString("songs");
+                // Saved with playlist_tracks, so getting here means none of its tracks could be loaded.
+                if (songs == null) {
+                    MessageUtils.sendErrorMessage("None of the songs in that playlist could be loaded!", channel, sender);
+                    return;
+                }
                 songs = songs.substring(1, songs.length() - 1);
-                list.get().addAll(Arrays.asList(songs.split(", ")));
+                list.addAll(Arrays.asList(songs.split(", ")));
             } else
                 channel.sendMessage(MessageUtils.getEmbed(sender)
                         .setDescription("That playlist does not exist!").build()).queue();
         });
-        return list.get();
-    }
-
-    private void loadFutureTasks() {
-        AtomicReference<Integer> loaded = new AtomicReference<>(0);
-        DatabaseManager.run(connection -> {
-            ResultSet set = connection.prepareCall("SELECT * FROM future_tasks").executeQuery();
-            while (set.next()) {
-                FutureAction fa =
-                        new FutureAction(set.getLong("guild_id"), set.getLong("channel_id"),
-                                set.getLong("responsible"),
-                                set.getLong("target"),
-                                set.getString("content"),
-                                new DateTime(set.getTimestamp("expires_at")),
-                                new DateTime(set.getTimestamp("created_at")),
-                                FutureAction.Action.valueOf(set.getString("action").toUpperCase())
-                        );
+        return list;
+    }
 
-                try {
-                    if (new DateTime().isAfter(fa.getExpires()))
-                        fa.execute();
-                    else {
-                        fa.queue();
-                        loaded.getAndUpdate(i -> i++);
-                    }
-                } catch (NullPointerException e) {
-                    FlareBot.LOGGER.error("Failed to execute/queue future task"
-                            + "\nAction: " + fa.getAction() + "\nResponsible: " + fa.getResponsible()
-                            + "\nTarget: " + fa.getTarget() + "\nContent: " + fa.getContent(), e);
-                }
-            }
-        });
+    public static LoadingCache<Long, GuildWrapper> getGuilds() {
+        return guilds;
+    }
 
-        FlareBot.LOGGER.info("Loaded " + loaded.get() + " future tasks");
+    public static GuildFlusher getGuildFlusher() {
+        return flusher;
     }
 
-    public static Cache<Long, GuildWrapper> getGuilds() {
-        return guilds;
+    public static GuildRedisCache getRedisCache() {
+        return redisCache;
+    }
+
+    public static MessageCache getMessageCache() {
+        return messageCache;
+    }
+
+    public static PrefixIndex getPrefixIndex() {
+        return prefixIndex;
+    }
+
+    /**
+     * Add a cached guild to the prefix index. Guilds are removed from the index when they change or leave the cache
+     * so they have to be added again from somewhere which has the guild anyway, like a message which could be a
+     * command.
+     *
+     * @param guild The guild to index.
+     */
+    public static void indexPrefix(GuildWrapper guild) {
+        long guildId = guild.getGuildIdLong();
+        char prefix = guild.getPrefix();
+        boolean captures = guild.getModeration().capturesMessages();
+        prefixIndex.put(guildId, prefix, captures);
+        // A change or removal made while this was being added could have been missed, the entry is dropped then.
+        if (guilds.getIfPresent(guildId) != guild || guild.getPrefix() != prefix
+                || guild.getModeration().capturesMessages() != captures)
+            prefixIndex.remove(guildId);
+    }
+
+    /**
+     * @return The snapshot from the last shutdown or null if there isn't one.
+     */
+    @Nullable
+    public static GuildSnapshot getSnapshot() {
+        return snapshot;
     }
 }
@@ -1,5 +1,6 @@
 package stream.flarebot.flarebot;
 
+import net.dv8tion.jda.core.JDA;
 import net.dv8tion.jda.core.OnlineStatus;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Message;
@@ -22,12 +23,12 @@ import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
 import net.dv8tion.jda.core.events.user.update.UserUpdateOnlineStatusEvent;
 import net.dv8tion.jda.core.exceptions.InsufficientPermissionException;
 import net.dv8tion.jda.core.hooks.ListenerAdapter;
+import net.dv8tion.jda.core.utils.MiscUtil;
 import net.dv8tion.jda.webhook.WebhookClient;
 import org.slf4j.Logger;
 import org.slf4j.MDC;
 import stream.flarebot.flarebot.commands.*;
 import stream.flarebot.flarebot.commands.commands.music.*;
-import stream.flarebot.flarebot.database.RedisController;
 import stream.flarebot.flarebot.mod.modlog.ModlogEvent;
 import stream.flarebot.flarebot.mod.modlog.ModlogHandler;
 import stream.flarebot.flarebot.objects.GuildWrapper;
@@ -44,7 +45,6 @@ import stream.flarebot.flarebot.util.objects.ButtonGroup;
 import stream.flarebot.flarebot.util.votes.VoteUtil;
 
 import java.awt.Color;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -52,8 +52,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
@@ -62,8 +60,8 @@ import java.util.stream.Collectors;
 public class Events extends ListenerAdapter {
 
     public static final ThreadGroup COMMAND_THREADS = new ThreadGroup("Command Threads");
-    private static final ExecutorService COMMAND_POOL = Executors.newFixedThreadPool(4, r ->
-            new Thread(COMMAND_THREADS, r, "Command Pool-" + COMMAND_THREADS.activeCount()));
+    private static final CommandScheduler COMMAND_SCHEDULER = new CommandScheduler(COMMAND_THREADS,
+            Config.INS.getCommandWorkers(), Config.INS.getCommandQueueSize());
     private static final List<Long> removedByMe = new ArrayList<>();
 
     private final Logger LOGGER = FlareBot.getLog(this.getClass());
@@ -105,30 +103,34 @@ public class Events extends ListenerAdapter {
                 }
             }
         }
-        if (!DataHandler.getGuild(event.getGuild().getIdLong()).getBetaAccess()) return;
         if (!event.getReactionEmote().getName().equals("\uD83D\uDCCC")) return; // Check if it's a :pushpin:
-        event.getChannel().getMessageById(event.getMessageId()).queue(message -> {
-            MessageReaction reaction =
-                    message.getReactions().stream().filter(r -> r.getReactionEmote().getName()
-                            .equals(event.getReactionEmote().getName())).findFirst().orElse(null);
-            if (reaction != null) {
-                if (reaction.getCount() == 5) {
-                    message.pin().queue((aVoid) -> event.getChannel().getHistory().retrievePast(1).complete().get(0)
-                            .delete().queue());
+        DataHandler.withGuild(event.getGuild().getIdLong(), wrapper -> {
+            if (!wrapper.getBetaAccess()) return;
+            event.getChannel().getMessageById(event.getMessageId()).queue(message -> {
+                MessageReaction reaction =
+                        message.getReactions().stream().filter(r -> r.getReactionEmote().getName()
+                                .equals(event.getReactionEmote().getName())).findFirst().orElse(null);
+                if (reaction != null) {
+                    if (reaction.getCount() == 5) {
+                        message.pin().queue((aVoid) -> event.getChannel().getHistory().retrievePast(1).complete().get(0)
+                                .delete().queue());
+                    }
                 }
-            }
+            });
         });
     }
 
     @Override
     public void onGuildMemberJoin(GuildMemberJoinEvent event) {
         if (event.getMember().getUser().isBot() || event.getMember().getUser().isFake()) return;
-        PlayerCache cache = FlareBot.instance().getPlayerCache(event.getMember().getUser().getId());
-        cache.setLastSeen(LocalDateTime.now());
-        GuildWrapper wrapper = DataHandler.getGuild(getGuildId(event));
-        if (wrapper == null) return;
+        PlayerCache cache = FlareBot.instance().getPlayerCache(event.getMember().getUser().getIdLong());
+        cache.setLastSeen(System.currentTimeMillis());
+        DataHandler.withGuild(getGuildId(event), wrapper -> onGuildMemberJoin(event, wrapper));
+    }
+
+    private void onGuildMemberJoin(GuildMemberJoinEvent event, GuildWrapper wrapper) {
         if (wrapper.isBlocked()) return;
-        if (DataHandler.getGuild(getGuildId(event)).getWelcome() != null) {
+        if (wrapper.getWelcome() != null) {
             Welcome welcome = wrapper.getWelcome();
             if ((welcome.getChannelId() != null && Getters.getChannelById(welcome.getChannelId()) != null)
                     || welcome.isDmEnabled()) {
@@ -265,14 +267,32 @@ public class Events extends ListenerAdapter {
 
     @Override
     public void onGuildMessageReceived(GuildMessageReceivedEvent event) {
-        PlayerCache cache = FlareBot.instance().getPlayerCache(event.getAuthor().getId());
-        cache.setLastMessage(LocalDateTime.from(event.getMessage().getCreationTime()));
-        cache.setLastSeen(LocalDateTime.now());
-        cache.setLastSpokeGuild(event.getGuild().getId());
+        PlayerCache cache = FlareBot.instance().getPlayerCache(event.getAuthor().getIdLong());
+        cache.setLastMessage((event.getMessageIdLong() >>> MiscUtil.TIMESTAMP_OFFSET) + MiscUtil.DISCORD_EPOCH);
+        cache.setLastSeen(System.currentTimeMillis());
+        cache.setLastSpokeGuild(event.getGuild().getIdLong());
 
         if (event.getAuthor().isBot()) return;
+        // Almost every message isn't a command, for indexed guilds those are dealt with here without the guild.
+        int entry = DataHandler.getPrefixIndex().get(event.getGuild().getIdLong());
+        if (entry != PrefixIndex.MISSING) {
+            String content = event.getMessage().getContentRaw();
+            if (content.isEmpty()) return;
+            char first = content.charAt(0);
+            // '_' and '<' could be asking for the prefix.
+            if (first != PrefixIndex.prefix(entry) && first != '_' && first != '<') {
+                if (PrefixIndex.capturesMessages(entry))
+                    DataHandler.getMessageCache().put(event.getMessage());
+                return;
+            }
+        }
+        DataHandler.withGuild(getGuildId(event), guild -> onGuildMessageReceived(event, guild));
+    }
+
+    private void onGuildMessageReceived(GuildMessageReceivedEvent event, GuildWrapper guild) {
+        DataHandler.indexPrefix(guild);
         String message = multiSpace.matcher(event.getMessage().getContentRaw()).replaceAll(" ");
-        if (message.startsWith("" + DataHandler.getGuild(getGuildId(event)).getPrefix())) {
+        if (message.startsWith("" + guild.getPrefix())) {
             List<Permission> perms = event.getChannel().getGuild().getSelfMember().getPermissions(event.getChannel());
             if (!perms.contains(Permission.ADMINISTRATOR)) {
                 if (!perms.contains(Permission.MESSAGE_WRITE)) {
@@ -294,16 +314,17 @@ public class Events extends ListenerAdapter {
             }
             Command cmd = FlareBot.getCommandManager().getCommand(command, event.getAuthor());
             if (cmd != null)
-                handleCommand(event, cmd, args);
+                handleCommand(event, guild, cmd, args);
         } else {
-            if (DataHandler.getGuild(getGuildId(event)).getPrefix() != Config.DEFAULT_PREFIX &&
+            if (guild.getPrefix() != Config.DEFAULT_PREFIX &&
                     (message.startsWith("_prefix")) || message.startsWith(event.getGuild().getSelfMember().getAsMention())) {
                 event.getChannel().sendMessage(MessageUtils.getEmbed(event.getAuthor())
-                        .setDescription("The server prefix is `" + DataHandler.getGuild(getGuildId(event)).getPrefix() + "`")
+                        .setDescription("The server prefix is `" + guild.getPrefix() + "`")
                         .build()).queue();
             }
-            if (!message.isEmpty()) {
-                RedisController.set(event.getMessageId(), GeneralUtils.getRedisMessageJson(event.getMessage()), "nx", "ex", 86400);
+            // Only the modlog reads cached messages, most guilds don't log edits or deletes.
+            if (!message.isEmpty() && guild.getModeration().capturesMessages()) {
+                DataHandler.getMessageCache().put(event.getMessage());
             }
         }
     }
@@ -311,12 +332,14 @@ public class Events extends ListenerAdapter {
     @Override
     public void onUserUpdateOnlineStatus(UserUpdateOnlineStatusEvent event) {
         if (event.getOldOnlineStatus() == OnlineStatus.OFFLINE)
-            FlareBot.instance().getPlayerCache(event.getUser().getId()).setLastSeen(LocalDateTime.now());
+            FlareBot.instance().getPlayerCache(event.getUser().getIdLong()).setLastSeen(System.currentTimeMillis());
     }
 
     @Override
     public void onStatusChange(StatusChangeEvent event) {
         if (FlareBot.EXITING.get()) return;
+        if (event.getNewStatus() == JDA.Status.CONNECTED)
+            DataHandler.prewarm(event.getJDA());
         Config.INS.getStatusLogWebhookClient().send(String.format("onStatusChange: %s -> %s SHARD: %d",
                 event.getOldStatus(), event.getNewStatus(),
                 event.getJDA().getShardInfo() != null ? event.getJDA().getShardInfo().getShardId()
@@ -337,13 +360,11 @@ public class Events extends ListenerAdapter {
 
     @Override
     public void onRoleDelete(RoleDeleteEvent event) {
-        if (DataHandler.getGuild(event.getGuild().getIdLong()) == null) return;
-        DataHandler.getGuild(event.getGuild().getIdLong()).getSelfAssignRoles().remove(event.getRole().getId());
+        DataHandler.withGuild(event.getGuild().getIdLong(), guild ->
+                guild.getSelfAssignRoles().remove(event.getRole().getId()));
     }
 
-    private void handleCommand(GuildMessageReceivedEvent event, Command cmd, String[] args) {
-        GuildWrapper guild = DataHandler.getGuild(event.getGuild().getIdLong());
-
+    private void handleCommand(GuildMessageReceivedEvent event, GuildWrapper guild, Command cmd, String[] args) {
         if (cmd.getType().isAdmin()) {
             if (PerGuildPermissions.isAdmin(event.getMember().getUser())) {
                 dispatchCommand(cmd, args, event, guild);
@@ -441,7 +462,7 @@ public class Events extends ListenerAdapter {
     }
 
     private void dispatchCommand(Command cmd, String[] args, GuildMessageReceivedEvent event, GuildWrapper guild) {
-        COMMAND_POOL.submit(() -> {
+        boolean queued = COMMAND_SCHEDULER.submit(event.getGuild().getIdLong(), cmd.getCommand(), () -> {
             Map<String, String> mdcContext = (MDC.getCopyOfContextMap() == null ? new HashMap<>() : MDC.getCopyOfContextMap());
             mdcContext.put("command", cmd.getCommand());
             mdcContext.put("args", Arrays.toString(args).replace("\n", "\\n"));
@@ -485,6 +506,9 @@ public class Events extends ListenerAdapter {
                 removedByMe.add(event.getMessageIdLong());
             }
         });
+        if (!queued)
+            MessageUtils.sendErrorMessage("This server already has too many commands waiting to run, please wait " +
+                    "for them to finish before running more!", event.getChannel());
     }
 
     public int getCommandCount() {
@@ -1,6 +1,5 @@
 package stream.flarebot.flarebot;
 
-import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
@@ -12,9 +11,9 @@ import org.slf4j.LoggerFactory;
 import stream.flarebot.flarebot.commands.*;
 import stream.flarebot.flarebot.commands.commands.music.SongCommand;
 import stream.flarebot.flarebot.database.DatabaseManager;
+import stream.flarebot.flarebot.metrics.Metrics;
 import stream.flarebot.flarebot.objects.PlayerCache;
 import stream.flarebot.flarebot.scheduler.FlareBotTask;
-import stream.flarebot.flarebot.scheduler.FutureAction;
 import stream.flarebot.flarebot.util.MessageUtils;
 import stream.flarebot.flarebot.util.ShardUtils;
 import stream.flarebot.flarebot.util.general.GeneralUtils;
@@ -46,10 +45,9 @@ public class FlareBot {
         LOGGER = getLog(FlareBot.class.getName());
     }
 
-    private Map<String, PlayerCache> playerCache = new ConcurrentHashMap<>();
+    private Map<Long, PlayerCache> playerCache = new ConcurrentHashMap<>();
 
     private long startTime;
-    private Set<FutureAction> futureActions = Sets.newConcurrentHashSet();
     private CommandManager commandManager;
 
     public static void main(String[] args) {
@@ -63,6 +61,7 @@ public class FlareBot {
         Thread.currentThread()
                 .setUncaughtExceptionHandler(((t, e) -> LOGGER.error("Uncaught exception in thread " + t, e)));
 
+        Metrics.init();
         DatabaseManager.init();
         new DataHandler().init();
 
@@ -153,9 +152,9 @@ public class FlareBot {
         return (hours < 10 ? "0" + hours : hours) + "h " + (minutes < 10 ? "0" + minutes : minutes) + "m " + (seconds < 10 ? "0" + seconds : seconds) + "s";
     }
 
-    public PlayerCache getPlayerCache(String userId) {
-        this.playerCache.computeIfAbsent(userId, k -> new PlayerCache(userId, null, null, null));
-        return this.playerCache.get(userId);
+    public PlayerCache getPlayerCache(long userId) {
+        PlayerCache cache = this.playerCache.get(userId);
+        return cache != null ? cache : this.playerCache.computeIfAbsent(userId, PlayerCache::new);
     }
 
     public void runTasks() {
@@ -202,8 +201,4 @@ public class FlareBot {
     public static CommandManager getCommandManager() {
         return FlareBot.instance().commandManager;
     }
-
-    public Set<FutureAction> getFutureActions() {
-        return futureActions;
-    }
 }
@@ -0,0 +1,294 @@
+package stream.flarebot.flarebot;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.collect.Lists;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.database.DatabaseManager;
+import stream.flarebot.flarebot.database.GuildCodec;
+import stream.flarebot.flarebot.database.GuildGson;
+import stream.flarebot.flarebot.metrics.Metrics;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+import stream.flarebot.flarebot.scheduler.FlareBotTask;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind persistence for guilds. Instead of writing a guild every time it leaves the cache this collects the
+ * guilds which actually changed and writes them in JDBC batches on a fixed interval.
+ * <p>
+ * Dirty guilds which get evicted are held in {@link #pending} until they are written, {@link DataHandler#getGuild}
+ * reads through it so an evicted guild is never reloaded from stale database data.
+ * <p>
+ * Written guilds are also updated in the {@link stream.flarebot.flarebot.database.GuildRedisCache} which tells any
+ * other FlareBot processes to reload them.
+ */
+public class GuildFlusher {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuildFlusher.class);
+
+    private static final long FLUSH_INTERVAL = TimeUnit.SECONDS.toMillis(30);
+    private static final int BATCH_SIZE = 100;
+    // The stored fields of a guild by name so a patch can serialize just the changed ones.
+    private static final Map<String, Field> GUILD_FIELDS = getGuildFields();
+
+    private final Cache<Long, GuildWrapper> cache;
+    private final Map<Long, GuildWrapper> pending = new ConcurrentHashMap<>();
+
+    GuildFlusher(Cache<Long, GuildWrapper> cache) {
+        this.cache = cache;
+    }
+
+    void start() {
+        new FlareBotTask("GuildFlusher") {
+            @Override
+            public void run() {
+                flush();
+            }
+        }.repeat(FLUSH_INTERVAL, FLUSH_INTERVAL);
+    }
+
+    /**
+     * Hand a guild which has left the cache to the flusher. Unchanged guilds are dropped, dirty ones are written with
+     * the next batch.
+     *
+     * @param wrapper The guild which left the cache.
+     */
+    void queue(GuildWrapper wrapper) {
+        if (wrapper.isDirty()) {
+            pending.put(wrapper.getGuildIdLong(), wrapper);
+            Metrics.dirtyGuilds.set(pending.size());
+        } else
+            Metrics.guildSaves.labels("skipped").inc();
+    }
+
+    /**
+     * Get a guild which has been evicted but not written yet.
+     *
+     * @param guildId The ID of the guild.
+     * @return The pending guild or null if there is nothing waiting to be written for it.
+     */
+    GuildWrapper getPending(long guildId) {
+        return pending.get(guildId);
+    }
+
+    /**
+     * Write every dirty guild, both the ones still in the cache and the ones waiting after eviction.
+     */
+    public synchronized void flush() {
+        Map<Long, GuildWrapper> dirty = getDirty();
+        Metrics.dirtyGuilds.set(dirty.size());
+        if (dirty.isEmpty()) return;
+
+        long start = System.currentTimeMillis();
+        List<GuildWrapper> batch = new ArrayList<>(BATCH_SIZE);
+        for (GuildWrapper wrapper : dirty.values()) {
+            batch.add(wrapper);
+            if (batch.size() == BATCH_SIZE) {
+                write(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty())
+            write(batch);
+        Metrics.dirtyGuilds.set(pending.size());
+        logger.debug("Flushed {} guilds in {}ms", dirty.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Write every dirty guild before shutting down. The batches are written in parallel with one connection each
+     * and anything not written by the deadline is given up on so the shutdown can't hang.
+     *
+     * @param timeout How long to wait for the guilds to be written in milliseconds.
+     * @return If every guild was written.
+     */
+    public synchronized boolean flushAll(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        List<List<GuildWrapper>> batches = Lists.partition(new ArrayList<>(getDirty().values()), BATCH_SIZE);
+        if (batches.isEmpty()) return true;
+        int total = batches.stream().mapToInt(List::size).sum();
+        logger.info("Writing {} guilds in {} batches before shutting down", total, batches.size());
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(batches.size(),
+                Config.INS.getHikariPoolSize()), r -> new Thread(r, "Guild-ShutdownFlush"));
+        CompletionService<Boolean> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<Boolean>, Integer> sizes = new HashMap<>();
+        for (List<GuildWrapper> batch : batches)
+            sizes.put(completion.submit(() -> write(batch)), batch.size());
+        executor.shutdown();
+
+        int persisted = 0;
+        int failed = 0;
+        try {
+            for (int done = 0; done < batches.size(); done++) {
+                Future<Boolean> future = completion.poll(deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    logger.error("Timed out writing guilds before shutting down");
+                    break;
+                }
+                int size = sizes.get(future);
+                boolean written = false;
+                try {
+                    written = future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Failed to write guilds before shutting down", e.getCause());
+                }
+                if (written)
+                    persisted += size;
+                else
+                    failed += size;
+                logger.info("Written {}/{} guilds before shutting down", persisted + failed, total);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor.shutdownNow();
+        Metrics.dirtyGuilds.set(pending.size());
+
+        int unwritten = total - persisted - failed;
+        if (failed > 0 || unwritten > 0)
+            logger.error("Written {} guilds before shutting down, {} failed and {} were not written in time",
+                    persisted, failed, unwritten);
+        else
+            logger.info("Written {} guilds before shutting down", persisted);
+        return persisted == total;
+    }
+
+    /**
+     * The guilds which have changes to write, both cached ones and ones which were removed from the cache.
+     */
+    private Map<Long, GuildWrapper> getDirty() {
+        // Cached guilds go in last so they win over an older evicted copy of the same guild.
+        Map<Long, GuildWrapper> dirty = new LinkedHashMap<>(pending);
+        for (GuildWrapper wrapper : cache.asMap().values())
+            if (wrapper.isDirty())
+                dirty.put(wrapper.getGuildIdLong(), wrapper);
+        return dirty;
+    }
+
+    /**
+     * Write a batch of guilds with one connection.
+     *
+     * @param batch The guilds to write.
+     * @return If the guilds were written, they are marked dirty again if not.
+     */
+    private boolean write(List<GuildWrapper> batch) {
+        boolean binary = Config.INS.useBinaryGuildData();
+        Boolean written = DatabaseManager.query("guilds.write", conn -> {
+            // Only one of the columns is ever set so a guild can't be read back from an outdated copy.
+            PreparedStatement upsert;
+            if (binary)
+                upsert = conn.prepareStatement("INSERT INTO guilds (guild_id, guild_blob) VALUES (?, ?) " +
+                        "ON CONFLICT (guild_id) DO UPDATE SET guild_blob = EXCLUDED.guild_blob, guild_data = NULL");
+            else
+                upsert = conn.prepareStatement("INSERT INTO guilds (guild_id, guild_data) VALUES (?, ?::jsonb) " +
+                        "ON CONFLICT (guild_id) DO UPDATE SET guild_data = EXCLUDED.guild_data, guild_blob = NULL");
+            // Replaces just the changed top level fields, rows which aren't stored as JSON yet are not touched.
+            PreparedStatement patch = conn.prepareStatement("UPDATE guilds SET guild_data = guild_data || ?::jsonb " +
+                    "WHERE guild_id = ? AND guild_data IS NOT NULL");
+            List<GuildWrapper> patched = new ArrayList<>();
+            int upserts = 0;
+            for (GuildWrapper wrapper : batch) {
+                // Cleared before serializing so anything changed while writing gets picked up next time.
+                Set<String> changes = wrapper.takeChanges();
+                if (changes != null && !binary) {
+                    patch.setString(1, getPatch(wrapper, changes));
+                    patch.setLong(2, wrapper.getGuildIdLong());
+                    patch.addBatch();
+                    patched.add(wrapper);
+                } else {
+                    addUpsert(upsert, wrapper, binary);
+                    upserts++;
+                }
+            }
+            if (!patched.isEmpty()) {
+                int[] updated = patch.executeBatch();
+                for (int i = 0; i < updated.length; i++) {
+                    // Never saved before so there is nothing to patch.
+                    if (updated[i] == 0) {
+                        addUpsert(upsert, patched.get(i), false);
+                        upserts++;
+                    }
+                }
+            }
+            if (upserts > 0)
+                upsert.executeBatch();
+            for (GuildWrapper wrapper : batch)
+                pending.computeIfPresent(wrapper.getGuildIdLong(), (id, queued) ->
+                        queued == wrapper && !wrapper.isDirty() ? null : queued);
+            Metrics.guildSaves.labels("flushed").inc(upserts);
+            Metrics.guildSaves.labels("patched").inc(batch.size() - upserts);
+            return true;
+        });
+        if (written == null) {
+            // The changes were already taken so they have to be put back to be written next time.
+            batch.forEach(GuildWrapper::markDirty);
+            Metrics.guildSaves.labels("failed").inc(batch.size());
+            return false;
+        }
+        // Done after the connection is given back, the other processes only reload once the database is up to date.
+        DataHandler.getRedisCache().putSaved(batch);
+        return true;
+    }
+
+    private void addUpsert(PreparedStatement upsert, GuildWrapper wrapper, boolean binary) throws SQLException {
+        upsert.setLong(1, wrapper.getGuildIdLong());
+        if (binary)
+            upsert.setBytes(2, GuildCodec.encode(wrapper));
+        else
+            upsert.setString(2, GuildGson.GSON.toJson(wrapper));
+        upsert.addBatch();
+    }
+
+    /**
+     * Build the JSON object with only the changed fields of a guild. Removed fields are included as null so the
+     * old value doesn't stay around in the stored document.
+     */
+    private String getPatch(GuildWrapper wrapper, Set<String> changes) {
+        JsonObject patch = new JsonObject();
+        for (String name : changes) {
+            // Only the changed fields are serialized, each the same way Gson would as part of the whole guild.
+            Field field = GUILD_FIELDS.get(name);
+            Object value;
+            try {
+                value = field == null ? null : field.get(wrapper);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Can't read guild field " + name, e);
+            }
+            patch.add(name, value == null ? JsonNull.INSTANCE : GuildGson.GSON.toJsonTree(value, field.getGenericType()));
+        }
+        // toString() keeps the nulls which Gson#toJson would drop.
+        return patch.toString();
+    }
+
+    private static Map<String, Field> getGuildFields() {
+        Map<String, Field> fields = new HashMap<>();
+        for (Field field : GuildWrapper.class.getDeclaredFields()) {
+            // The fields Gson stores.
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers()))
+                continue;
+            field.setAccessible(true);
+            fields.put(field.getName(), field);
+        }
+        return fields;
+    }
+}
@@ -0,0 +1,164 @@
+package stream.flarebot.flarebot;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.database.DatabaseManager;
+import stream.flarebot.flarebot.database.GuildCodec;
+import stream.flarebot.flarebot.database.GuildGson;
+import stream.flarebot.flarebot.database.GuildRedisCache;
+import stream.flarebot.flarebot.database.GuildSnapshot;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+import stream.flarebot.flarebot.objects.Report;
+import stream.flarebot.flarebot.util.ReportManager;
+import stream.flarebot.flarebot.util.TagManager;
+import stream.flarebot.flarebot.util.WarningManager;
+
+import javax.annotation.Nonnull;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loads guilds into the {@link DataHandler} cache. Bulk loads go through {@link #loadAll(Iterable)} which fetches
+ * every requested guild with a single query.
+ * <p>
+ * A guild is either stored as JSON in {@code guild_data} or encoded with {@link GuildCodec} in {@code guild_blob},
+ * both are read no matter which format is configured. Guilds in the other format are marked dirty so the
+ * {@link GuildFlusher} rewrites them in the configured one.
+ * <p>
+ * When the {@link GuildRedisCache} is enabled it is checked before the database and guilds read from the database
+ * are added to it. After a restart guilds which are in the {@link GuildSnapshot} are taken from there.
+ */
+public class GuildLoader implements CacheLoader<Long, GuildWrapper> {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuildLoader.class);
+
+    @Override
+    public GuildWrapper load(@Nonnull Long guildId) {
+        return loadAll(Collections.singleton(guildId)).get(guildId);
+    }
+
+    @Override
+    public Map<Long, GuildWrapper> loadAll(@Nonnull Iterable<? extends Long> guildIds) {
+        Map<Long, GuildWrapper> loaded = new HashMap<>();
+        List<Long> toQuery = new ArrayList<>();
+        for (Long guildId : guildIds) {
+            // Evicted but not written yet, the database copy would be stale.
+            GuildWrapper pending = DataHandler.getGuildFlusher().getPending(guildId);
+            if (pending != null)
+                loaded.put(guildId, pending);
+            else
+                toQuery.add(guildId);
+        }
+        if (toQuery.isEmpty())
+            return loaded;
+
+        Map<Long, GuildWrapper> cached = DataHandler.getRedisCache().getAll(toQuery);
+        loaded.putAll(cached);
+        toQuery.removeAll(cached.keySet());
+        GuildSnapshot snapshot = DataHandler.getSnapshot();
+        if (snapshot != null) {
+            toQuery.removeIf(guildId -> {
+                GuildWrapper wrapper = snapshot.take(guildId);
+                if (wrapper == null) return false;
+                loaded.put(guildId, wrapper);
+                return true;
+            });
+        }
+        if (toQuery.isEmpty()) {
+            if (hasLegacyRecords(loaded))
+                DatabaseManager.run("guilds.move_legacy", conn -> moveLegacyRecords(conn, loaded));
+            return loaded;
+        }
+
+        // Never cache defaults for guilds we failed to read, they would overwrite the real data when saved.
+        try {
+            DatabaseManager.execute("guilds.load", conn -> {
+                PreparedStatement ps = conn.prepareStatement("SELECT guild_id, guild_data, guild_blob FROM guilds WHERE guild_id = ANY(?)");
+                ps.setArray(1, conn.createArrayOf("bigint", toQuery.toArray(new Long[0])));
+                ResultSet set = ps.executeQuery();
+
+                boolean binary = Config.INS.useBinaryGuildData();
+                while (set.next()) {
+                    byte[] blob = set.getBytes("guild_blob");
+                    GuildWrapper wrapper;
+                    if (blob != null)
+                        wrapper = GuildCodec.decode(blob);
+                    else
+                        wrapper = GuildGson.GSON.fromJson(set.getString("guild_data"), GuildWrapper.class);
+                    if (binary != (blob != null))
+                        wrapper.markDirty();
+                    loaded.put(set.getLong("guild_id"), wrapper);
+                }
+
+                // Failing to copy the legacy records must not fail the load, they are kept and copied next time.
+                try {
+                    moveLegacyRecords(conn, loaded);
+                } catch (SQLException e) {
+                    logger.error("Failed to move the legacy records of guilds " + loaded.keySet(), e);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to load guilds " + toQuery, e);
+        }
+
+        List<GuildWrapper> fromDatabase = new ArrayList<>(toQuery.size());
+        for (Long guildId : toQuery) {
+            GuildWrapper stored = loaded.get(guildId);
+            if (stored != null)
+                fromDatabase.add(stored);
+            else
+                loaded.put(guildId, new GuildWrapper(guildId));
+        }
+        DataHandler.getRedisCache().putLoaded(fromDatabase);
+        return loaded;
+    }
+
+    private static boolean hasLegacyRecords(Map<Long, GuildWrapper> loaded) {
+        for (GuildWrapper wrapper : loaded.values())
+            if (wrapper.hasLegacyRecords())
+                return true;
+        return false;
+    }
+
+    /**
+     * Copy the tags, warnings and reports still stored with the loaded guilds into their own tables, as one batch per
+     * table. They are only dropped from the guilds once everything is copied, the copy can safely run again if a
+     * guild isn't saved after.
+     */
+    private static void moveLegacyRecords(Connection conn, Map<Long, GuildWrapper> loaded) throws SQLException {
+        Map<Long, Map<String, String>> tags = new HashMap<>();
+        Map<Long, Map<String, List<String>>> warnings = new HashMap<>();
+        Map<Long, List<Report>> reports = new HashMap<>();
+        List<GuildWrapper> moved = new ArrayList<>();
+        for (Map.Entry<Long, GuildWrapper> entry : loaded.entrySet()) {
+            GuildWrapper wrapper = entry.getValue();
+            if (!wrapper.hasLegacyRecords()) continue;
+            if (wrapper.getLegacyTags() != null)
+                tags.put(entry.getKey(), wrapper.getLegacyTags());
+            if (wrapper.getLegacyWarnings() != null)
+                warnings.put(entry.getKey(), wrapper.getLegacyWarnings());
+            if (wrapper.getLegacyReports() != null)
+                reports.put(entry.getKey(), wrapper.getLegacyReports());
+            moved.add(wrapper);
+        }
+        if (moved.isEmpty()) return;
+
+        if (!tags.isEmpty())
+            TagManager.importTags(conn, tags);
+        if (!warnings.isEmpty())
+            WarningManager.importWarnings(conn, warnings);
+        if (!reports.isEmpty())
+            ReportManager.importReports(conn, reports);
+        for (GuildWrapper wrapper : moved)
+            wrapper.clearLegacyRecords();
+    }
+}
@@ -1,5 +1,7 @@
 package stream.flarebot.flarebot;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.audit.ActionType;
@@ -34,7 +36,6 @@ import net.dv8tion.jda.core.events.role.RoleDeleteEvent;
 import net.dv8tion.jda.core.events.role.update.GenericRoleUpdateEvent;
 import net.dv8tion.jda.core.events.role.update.RoleUpdatePositionEvent;
 import net.dv8tion.jda.core.hooks.EventListener;
-import stream.flarebot.flarebot.database.RedisController;
 import stream.flarebot.flarebot.database.RedisMessage;
 import stream.flarebot.flarebot.mod.modlog.ModlogEvent;
 import stream.flarebot.flarebot.mod.modlog.ModlogHandler;
@@ -51,10 +52,28 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nonnull;
 
 public class ModlogEvents implements EventListener {
 
+    private static final long AUDIT_LOG_REUSE = 2000;
+
+    private static final AtomicInteger messageThreads = new AtomicInteger();
+    private static final ExecutorService messageExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "Modlog-Messages-" + messageThreads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Cache<Long, CompletionStage<List<AuditLogEntry>>> deleteAuditLogs = Caffeine.newBuilder()
+            .expireAfterWrite(AUDIT_LOG_REUSE, TimeUnit.MILLISECONDS)
+            .build();
+
     private long roleResponseNumber = 0;
     private long guildResponseNumber = 0;
 
@@ -82,10 +101,10 @@ public class ModlogEvents implements EventListener {
         if (g == null)
             return;
 
-        GuildWrapper guildWrapper = DataHandler.getGuild(g.getIdLong());
-        if (guildWrapper == null)
-            return;
+        DataHandler.withGuild(g.getIdLong(), guildWrapper -> onEvent(event, guildWrapper));
+    }
 
+    private void onEvent(Event event, @Nonnull GuildWrapper guildWrapper) {
         // GUILD
         if (event instanceof GuildBanEvent)
             onGuildBan((GuildBanEvent) event, guildWrapper);
@@ -348,42 +367,72 @@ public class ModlogEvents implements EventListener {
     private void onMessageUpdate(MessageUpdateEvent event, @Nonnull GuildWrapper wrapper) {
         if (cannotHandle(wrapper, ModlogEvent.MESSAGE_EDIT)) return;
         if (event.getAuthor().isBot()) return;
-        if (!RedisController.exists(event.getMessageId())) return;
-        RedisMessage old = GeneralUtils.toRedisMessage(RedisController.get(event.getMessageId()));
-        ModlogHandler.getInstance().postToModlog(wrapper, ModlogEvent.MESSAGE_EDIT, event.getAuthor(),
-                new MessageEmbed.Field("Old Message", FormatUtils.truncate(1024, old.getContent(), true), false),
-                new MessageEmbed.Field("New Message", FormatUtils.truncate(1024, event.getMessage().getContentDisplay(), true), false),
-                new MessageEmbed.Field("Channel", event.getTextChannel().getName() + " (" + event.getTextChannel().getId() + ")", true));
-        RedisController.set(event.getMessageId(), GeneralUtils.getRedisMessageJson(event.getMessage()), "xx", "ex", 61200);
+        runAsync(event.getGuild(), () -> {
+            RedisMessage old = DataHandler.getMessageCache().replace(event.getMessage());
+            if (old == null) return;
+            ModlogHandler.getInstance().postToModlog(wrapper, ModlogEvent.MESSAGE_EDIT, event.getAuthor(),
+                    new MessageEmbed.Field("Old Message", FormatUtils.truncate(1024, old.getContent(), true), false),
+                    new MessageEmbed.Field("New Message", FormatUtils.truncate(1024, event.getMessage().getContentDisplay(), true), false),
+                    new MessageEmbed.Field("Channel", event.getTextChannel().getName() + " (" + event.getTextChannel().getId() + ")", true));
+        });
     }
 
     private void onMessageDelete(MessageDeleteEvent event, @Nonnull GuildWrapper wrapper) {
         if (cannotHandle(wrapper, ModlogEvent.MESSAGE_DELETE)) return;
-        List<AuditLogEntry> entryLiat = event.getGuild().getAuditLogs().type(ActionType.MESSAGE_DELETE).complete();
-        if (entryLiat.size() == 0) return;
-        AuditLogEntry entry = event.getGuild().getAuditLogs().type(ActionType.MESSAGE_DELETE).complete().get(0);
-        if (entry.getUser().isBot()) return;
-        User responsible = null;
-        if (Client.instance().getEvents().getRemovedByMeList().contains(event.getMessageIdLong())) {
-            Client.instance().getEvents().getRemovedByMeList().remove(event.getMessageIdLong());
-            return;
-        }
-        if (!RedisController.exists(event.getMessageId())) return;
-        RedisMessage deleted = GeneralUtils.toRedisMessage(RedisController.get(event.getMessageId()));
-        if (entry.getTargetId().equals(deleted.getAuthorID())) {
+        if (Client.instance().getEvents().getRemovedByMeList().remove(event.getMessageIdLong())) return;
+        getDeleteAuditLog(event.getGuild()).thenAcceptAsync(entries -> {
+            if (entries.isEmpty()) return;
+            AuditLogEntry entry = entries.get(0);
             if (entry.getUser().isBot()) return;
-            responsible = entry.getUser();
-        }
-        User sender = GuildUtils.getUser(deleted.getAuthorID());
-        ModlogHandler.getInstance().postToModlog(wrapper, ModlogEvent.MESSAGE_DELETE, sender,
-                (responsible != null ? new MessageEmbed.Field("Deleted By", MessageUtils.getUserAndId(responsible), true)
-                        : null),
-                new MessageEmbed.Field("Message", FormatUtils.truncate(1024, deleted.getContent(), true), true),
-                new MessageEmbed.Field("Channel", event.getTextChannel().getName() + " (" + deleted.getChannelID() + ")", true),
-                new MessageEmbed.Field("Sent", FormatUtils.formatTime(Instant.ofEpochMilli(deleted.getTimestamp())
-                        .atZone(ZoneId.systemDefault()).toLocalDateTime()), true)
-        );
-        RedisController.del(event.getMessageId());
+            User responsible = null;
+            RedisMessage deleted = DataHandler.getMessageCache().remove(event.getChannel().getIdLong(),
+                    event.getMessageIdLong());
+            if (deleted == null) return;
+            if (entry.getTargetId().equals(deleted.getAuthorID()))
+                responsible = entry.getUser();
+            User sender = GuildUtils.getUser(deleted.getAuthorID());
+            ModlogHandler.getInstance().postToModlog(wrapper, ModlogEvent.MESSAGE_DELETE, sender,
+                    (responsible != null ? new MessageEmbed.Field("Deleted By", MessageUtils.getUserAndId(responsible), true)
+                            : null),
+                    new MessageEmbed.Field("Message", FormatUtils.truncate(1024, deleted.getContent(), true), true),
+                    new MessageEmbed.Field("Channel", event.getTextChannel().getName() + " (" + deleted.getChannelID() + ")", true),
+                    new MessageEmbed.Field("Sent", FormatUtils.formatTime(Instant.ofEpochMilli(deleted.getTimestamp())
+                            .atZone(ZoneId.systemDefault()).toLocalDateTime()), true)
+            );
+        }, messageExecutor).whenComplete((v, e) -> {
+            if (e != null)
+                FlareBot.LOGGER.error("Failed to log a message delete in guild " + event.getGuild().getId(), e);
+        });
+    }
+
+    /**
+     * Get the latest message delete from the audit log. Deletes usually come in bursts, like a purge, so the request
+     * is shared by every delete in a guild for {@link #AUDIT_LOG_REUSE} milliseconds.
+     */
+    private CompletionStage<List<AuditLogEntry>> getDeleteAuditLog(Guild guild) {
+        CompletionStage<List<AuditLogEntry>> stage = deleteAuditLogs.get(guild.getIdLong(), id ->
+                guild.getAuditLogs().type(ActionType.MESSAGE_DELETE).limit(1).submit());
+        // A failed request isn't shared, the next delete tries again. Added here rather than when loading since a
+        // stage which already failed would run this inside of the load.
+        stage.whenComplete((entries, e) -> {
+            if (e != null)
+                deleteAuditLogs.asMap().remove(guild.getIdLong(), stage);
+        });
+        return stage;
+    }
+
+    /**
+     * Handle a message event on {@link #messageExecutor} so the event thread never waits on the message cache or
+     * Discord.
+     */
+    private void runAsync(Guild guild, Runnable handler) {
+        messageExecutor.execute(() -> {
+            try {
+                handler.run();
+            } catch (Exception e) {
+                FlareBot.LOGGER.error("Failed to log a message event in guild " + guild.getId(), e);
+            }
+        });
     }
 
     private void onGuildUpdateExplicitContentLevel(GuildUpdateExplicitContentLevelEvent e, @Nonnull GuildWrapper wrapper) {
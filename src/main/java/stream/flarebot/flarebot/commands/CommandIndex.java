@@ -0,0 +1,82 @@
+package stream.flarebot.flarebot.commands;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+
+/**
+ * Immutable case insensitive lookup of commands by name and alias.
+ * <p>
+ * An open addressing table built once from the commands. The hash folds the case of each character the same way
+ * {@link String#equalsIgnoreCase(String)} does so looking a name up doesn't have to lowercase it first, a lookup
+ * doesn't allocate anything.
+ */
+public class CommandIndex {
+
+    private final String[] keys;
+    private final Command[] commands;
+    private final int mask;
+    private final int size;
+
+    /**
+     * @param commands The commands to index, if two of them share a name or alias the first one is kept like the old
+     *                 linear scan did.
+     */
+    public CommandIndex(Collection<Command> commands) {
+        int names = 0;
+        for (Command command : commands)
+            names += 1 + command.getAliases().length;
+        // At most half full so probes stay short.
+        int capacity = Integer.highestOneBit(Math.max(names, 1) * 2 - 1) << 1;
+        this.keys = new String[capacity];
+        this.commands = new Command[capacity];
+        this.mask = capacity - 1;
+
+        int size = 0;
+        for (Command command : commands) {
+            if (put(command.getCommand(), command)) size++;
+            for (String alias : command.getAliases())
+                if (put(alias, command)) size++;
+        }
+        this.size = size;
+    }
+
+    /**
+     * Find a command by its name or one of its aliases, ignoring case.
+     *
+     * @param name The name used.
+     * @return The command or null if there isn't one with that name.
+     */
+    @Nullable
+    public Command get(String name) {
+        for (int i = hash(name) & mask; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equalsIgnoreCase(name))
+                return commands[i];
+        }
+        return null;
+    }
+
+    /**
+     * @return The amount of names and aliases in the index.
+     */
+    public int size() {
+        return size;
+    }
+
+    private boolean put(String name, Command command) {
+        int i = hash(name) & mask;
+        for (; keys[i] != null; i = (i + 1) & mask) {
+            if (keys[i].equalsIgnoreCase(name))
+                return false;
+        }
+        keys[i] = name;
+        commands[i] = command;
+        return true;
+    }
+
+    private static int hash(String name) {
+        int h = 0;
+        for (int i = 0; i < name.length(); i++)
+            h = 31 * h + Character.toLowerCase(Character.toUpperCase(name.charAt(i)));
+        return h ^ (h >>> 16);
+    }
+}
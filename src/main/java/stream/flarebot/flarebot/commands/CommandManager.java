@@ -1,15 +1,19 @@
 package stream.flarebot.flarebot.commands;
 
 import net.dv8tion.jda.core.entities.User;
-import org.reflections.Reflections;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stream.flarebot.flarebot.permissions.PerGuildPermissions;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
 
 public class CommandManager {
 
@@ -18,40 +22,61 @@ public class CommandManager {
     private final List<Command> commands = new CopyOnWriteArrayList<>();
     private final Logger logger = LoggerFactory.getLogger("Command Manager");
 
+    // Built once all commands are loaded, secret commands are only looked up for admins.
+    private CommandIndex publicIndex;
+    private CommandIndex secretIndex;
+    private Map<CommandType, Set<Command>> commandsByType;
+
     public CommandManager() {
         instance = this;
 
-        long start = System.currentTimeMillis();
+        long start = System.nanoTime();
         try {
-            for (Class<?> c : new Reflections("stream.flarebot.flarebot.commands.commands").getSubTypesOf(Command.class)) {
-                commands.add((Command) c.newInstance());
-            }
-            logger.info("Loaded {} commands in {}ms.", commands.size(), (System.currentTimeMillis() - start));
-        } catch (IllegalAccessException | InstantiationException e) {
+            // The registry is generated by CommandRegistryProcessor when compiling.
+            commands.addAll(CommandRegistry.createCommands());
+            long created = System.nanoTime();
+            buildIndex();
+            long indexed = System.nanoTime();
+            logger.info("Loaded {} commands in {}ms ({}ms creating, {}ms indexing), {}ms after JVM start.",
+                    commands.size(), (indexed - start) / 1_000_000, (created - start) / 1_000_000,
+                    (indexed - created) / 1_000_000, ManagementFactory.getRuntimeMXBean().getUptime());
+        } catch (RuntimeException e) {
             logger.error("Could not load commands!", e);
             System.exit(1);
         }
     }
 
-    // https://bots.are-pretty.sexy/214501.png
-    // New way to process commands, this way has been proven to be quicker overall.
+    private void buildIndex() {
+        List<Command> publicCommands = new ArrayList<>();
+        List<Command> secretCommands = new ArrayList<>();
+        Map<CommandType, Set<Command>> byType = new EnumMap<>(CommandType.class);
+        for (CommandType type : CommandType.values())
+            byType.put(type, new LinkedHashSet<>());
+        for (Command command : commands) {
+            (command.getType() == CommandType.SECRET ? secretCommands : publicCommands).add(command);
+            byType.get(command.getType()).add(command);
+        }
+        byType.replaceAll((type, set) -> Collections.unmodifiableSet(set));
+        publicIndex = new CommandIndex(publicCommands);
+        secretIndex = new CommandIndex(secretCommands);
+        commandsByType = byType;
+    }
+
+    /**
+     * Find a command by its name or an alias, ignoring case. This runs for every message with the prefix so it is
+     * only ever a lookup in the prebuilt indexes.
+     *
+     * @param s    The name which was used.
+     * @param user The user who used it, secret commands are only found for admins.
+     * @return The command or null if there is none with that name.
+     */
     public Command getCommand(String s, User user) {
         if (PerGuildPermissions.isAdmin(user)) {
-            for (Command cmd : getCommandsByType(CommandType.SECRET)) {
-                if (cmd.getCommand().equalsIgnoreCase(s))
-                    return cmd;
-                for (String alias : cmd.getAliases())
-                    if (alias.equalsIgnoreCase(s)) return cmd;
-            }
-        }
-        for (Command cmd : getCommands()) {
-            if (cmd.getType() == CommandType.SECRET) continue;
-            if (cmd.getCommand().equalsIgnoreCase(s))
-                return cmd;
-            for (String alias : cmd.getAliases())
-                if (alias.equalsIgnoreCase(s)) return cmd;
+            Command secret = secretIndex.get(s);
+            if (secret != null)
+                return secret;
         }
-        return null;
+        return publicIndex.get(s);
     }
 
     public List<Command> getCommands() {
@@ -59,7 +84,7 @@ public class CommandManager {
     }
 
     public Set<Command> getCommandsByType(CommandType type) {
-        return commands.stream().filter(command -> command.getType() == type).collect(Collectors.toSet());
+        return commandsByType.get(type);
     }
 
     public static CommandManager getInstance() {
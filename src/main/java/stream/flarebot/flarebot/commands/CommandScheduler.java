@@ -0,0 +1,139 @@
+package stream.flarebot.flarebot.commands;
+
+import io.prometheus.client.Gauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.FlareBot;
+import stream.flarebot.flarebot.metrics.Metrics;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs commands on a fixed amount of threads without letting one guild hold up the others.
+ * <p>
+ * Every guild has its own bounded queue and only runs one command at a time. Guilds with commands waiting take
+ * turns, a thread runs the next command of the guild at the front and then moves that guild to the back, so a guild
+ * spamming slow commands only delays itself.
+ */
+public class CommandScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(CommandScheduler.class);
+
+    // A guild is only in here while it has a command waiting or running. Guilds are added and removed inside of
+    // compute so a command queued while a thread finishes with the guild is never left behind.
+    private final Map<Long, GuildQueue> guilds = new ConcurrentHashMap<>();
+    private final BlockingQueue<GuildQueue> ready = new LinkedBlockingQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int queueSize;
+
+    public CommandScheduler(ThreadGroup group, int workers, int queueSize) {
+        this.queueSize = Math.max(queueSize, 1);
+        Metrics.commandsQueued.setChild(new Gauge.Child() {
+            @Override
+            public double get() {
+                return queued.get();
+            }
+        });
+        for (int i = 0; i < Math.max(workers, 1); i++)
+            new Thread(group, this::work, "Command Pool-" + i).start();
+    }
+
+    /**
+     * Queue a command, this never blocks.
+     *
+     * @param guildId The guild the command was run in.
+     * @param command The name of the command, used for the metrics.
+     * @param task    Runs the command.
+     * @return false if the guild already has too many commands waiting and this one was rejected.
+     */
+    public boolean submit(long guildId, String command, Runnable task) {
+        Job job = new Job(command, task);
+        guilds.compute(guildId, (id, guild) -> {
+            if (guild == null) {
+                guild = new GuildQueue(id);
+                guild.jobs.add(job);
+                ready.add(guild);
+            } else if (guild.jobs.size() < queueSize) {
+                // Already waiting in ready or running, the thread running it moves it to the back of ready.
+                guild.jobs.add(job);
+            } else {
+                return guild;
+            }
+            job.accepted = true;
+            return guild;
+        });
+        if (!job.accepted) {
+            Metrics.commandsRejected.labels(command).inc();
+            return false;
+        }
+        queued.incrementAndGet();
+        return true;
+    }
+
+    private void work() {
+        while (!FlareBot.EXITING.get()) {
+            GuildQueue guild;
+            try {
+                guild = ready.poll(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (guild == null) continue;
+
+            // Only the thread which took the guild from ready polls its queue.
+            Job job = guild.jobs.poll();
+            if (job != null)
+                run(job);
+
+            guilds.computeIfPresent(guild.guildId, (id, current) -> {
+                if (current.jobs.isEmpty())
+                    return null;
+                ready.add(current);
+                return current;
+            });
+        }
+    }
+
+    private void run(Job job) {
+        queued.decrementAndGet();
+        long start = System.nanoTime();
+        Metrics.commandQueueWait.labels(job.command).observe((start - job.queuedAt) / 1e9);
+        try {
+            job.task.run();
+        } catch (Exception e) {
+            logger.error("Failed to run command " + job.command, e);
+        } finally {
+            Metrics.commandDuration.labels(job.command).observe((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private static class GuildQueue {
+
+        private final long guildId;
+        private final Queue<Job> jobs = new ConcurrentLinkedQueue<>();
+
+        private GuildQueue(long guildId) {
+            this.guildId = guildId;
+        }
+    }
+
+    private static class Job {
+
+        private final String command;
+        private final Runnable task;
+        private final long queuedAt = System.nanoTime();
+        private boolean accepted;
+
+        private Job(String command, Runnable task) {
+            this.command = command;
+            this.task = task;
+        }
+    }
+}
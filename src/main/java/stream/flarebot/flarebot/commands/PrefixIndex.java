@@ -0,0 +1,157 @@
+package stream.flarebot.flarebot.commands;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The prefix of each guild keyed by the guild ID, this lets the messages which aren't commands be skipped without
+ * looking the guild up or allocating anything.
+ * <p>
+ * Entries also record whether the guild caches messages for the modlog since that is the only other thing done with
+ * most messages. Lookups are an optimistic read of a primitive open addressing table and only take the lock if a
+ * write happened at the same time, writes are rare and take the lock.
+ */
+public class PrefixIndex {
+
+    /**
+     * Returned by {@link #get(long)} for guilds which aren't indexed.
+     */
+    public static final int MISSING = -1;
+
+    private static final int CAPTURES = 1 << 16;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final StampedLock lock = new StampedLock();
+    private Table table = new Table(MIN_CAPACITY);
+
+    /**
+     * Look a guild up, this never blocks unless the index is being written to.
+     *
+     * @param guildId The ID of the guild.
+     * @return The entry, use {@link #prefix(int)} and {@link #capturesMessages(int)} to read it, or {@link #MISSING}.
+     */
+    public int get(long guildId) {
+        long stamp = lock.tryOptimisticRead();
+        int entry = table.find(guildId);
+        if (lock.validate(stamp))
+            return entry;
+        stamp = lock.readLock();
+        try {
+            return table.find(guildId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    public static char prefix(int entry) {
+        return (char) entry;
+    }
+
+    public static boolean capturesMessages(int entry) {
+        return (entry & CAPTURES) != 0;
+    }
+
+    public void put(long guildId, char prefix, boolean capturesMessages) {
+        int entry = prefix | (capturesMessages ? CAPTURES : 0);
+        long stamp = lock.writeLock();
+        try {
+            if (table.put(guildId, entry) && table.size * 2 > table.keys.length)
+                table = table.resize();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public void remove(long guildId) {
+        long stamp = lock.writeLock();
+        try {
+            table.remove(guildId);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private static class Table {
+
+        // 0 is an empty slot, guild IDs are never 0.
+        private final long[] keys;
+        private final int[] entries;
+        private final int mask;
+        private int size;
+
+        private Table(int capacity) {
+            this.keys = new long[capacity];
+            this.entries = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        // Bounded by the length of the table since an optimistic read can see it while it is being changed.
+        private int find(long guildId) {
+            int i = hash(guildId);
+            for (int probes = 0; probes < keys.length; probes++) {
+                long key = keys[i];
+                if (key == guildId)
+                    return entries[i];
+                if (key == 0)
+                    return MISSING;
+                i = (i + 1) & mask;
+            }
+            return MISSING;
+        }
+
+        /**
+         * @return If the guild wasn't in the table before.
+         */
+        private boolean put(long guildId, int entry) {
+            int i = hash(guildId);
+            while (keys[i] != 0 && keys[i] != guildId)
+                i = (i + 1) & mask;
+            entries[i] = entry;
+            if (keys[i] == guildId)
+                return false;
+            keys[i] = guildId;
+            size++;
+            return true;
+        }
+
+        /**
+         * Remove a guild, the entries after it are shifted back so no probe chain is broken.
+         */
+        private void remove(long guildId) {
+            int i = hash(guildId);
+            while (keys[i] != guildId) {
+                if (keys[i] == 0) return;
+                i = (i + 1) & mask;
+            }
+            for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                int home = hash(keys[j]);
+                // Entries whose home is between the gap and themselves have to stay where they are.
+                boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!between) {
+                    keys[i] = keys[j];
+                    entries[i] = entries[j];
+                    i = j;
+                }
+            }
+            keys[i] = 0;
+            entries[i] = 0;
+            size--;
+        }
+
+        private Table resize() {
+            Table resized = new Table(keys.length * 2);
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != 0)
+                    resized.put(keys[i], entries[i]);
+            }
+            return resized;
+        }
+
+        private int hash(long guildId) {
+            return (int) ((guildId * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
+}
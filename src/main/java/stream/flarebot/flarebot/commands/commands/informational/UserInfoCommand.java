@@ -43,7 +43,7 @@ public class UserInfoCommand implements Command {
         if (channel.getGuild().getMember(user) != null)
             targetMember = channel.getGuild().getMember(user);
 
-        PlayerCache cache = flareBot.getPlayerCache(id);
+        PlayerCache cache = flareBot.getPlayerCache(user.getIdLong());
         channel.sendMessage(MessageUtils.getEmbed(sender)
                 .addField("User Info", "User: " + user.getName() + "#" + user.getDiscriminator()
                         + "\nID: " + user.getId() + "\n" +
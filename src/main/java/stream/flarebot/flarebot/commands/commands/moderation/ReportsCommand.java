@@ -12,8 +12,10 @@ import stream.flarebot.flarebot.objects.Report;
 import stream.flarebot.flarebot.objects.ReportStatus;
 import stream.flarebot.flarebot.permissions.Permission;
 import stream.flarebot.flarebot.util.MessageUtils;
+import stream.flarebot.flarebot.util.ReportManager;
 import stream.flarebot.flarebot.util.buttons.ButtonGroupConstants;
 import stream.flarebot.flarebot.util.general.GeneralUtils;
+import stream.flarebot.flarebot.util.pagination.LazyPaginationList;
 import stream.flarebot.flarebot.util.pagination.PagedTableBuilder;
 import stream.flarebot.flarebot.util.pagination.PaginationUtil;
 
@@ -26,6 +28,8 @@ import java.util.stream.Collectors;
 
 public class ReportsCommand implements Command {
 
+    private static final int REPORTS_PER_PAGE = 10;
+
     @Override
     public void onCommand(User sender, GuildWrapper guild, TextChannel channel, Message message, String[] args, Member member) {
         if (args.length == 0) {
@@ -34,38 +38,42 @@ public class ReportsCommand implements Command {
             if (args[0].equalsIgnoreCase("list")) {
                 if (args.length <= 2) {
                     if (getPermissions(channel).hasPermission(member, Permission.REPORTS_LIST)) {
-                        if (guild.getReportManager().getReports().isEmpty()) {
+                        ReportManager reportManager = guild.getReportManager();
+                        int count = reportManager.getCount();
+                        if (count == 0) {
                             MessageUtils.sendInfoMessage("No Reports for this guild!", channel, sender);
                             return;
                         }
 
-                        PagedTableBuilder tb = new PagedTableBuilder();
-
-                        ArrayList<String> header = new ArrayList<>();
-                        header.add("Id");
-                        header.add("Reported");
-                        header.add("Time");
-                        header.add("Status");
-                        tb.setColumns(header);
-
-                        List<Report> reports = guild.getReportManager().getReports();
-                        for (Report report : reports) {
-                            ArrayList<String> row = new ArrayList<>();
-                            row.add(String.valueOf(report.getId()));
-                            row.add(MessageUtils.getTag(Getters.getUserById(String.valueOf(report.getReportedId()))));
-
-                            row.add(report.getTime().toLocalDateTime().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + " GMT/BST");
-
-                            row.add(report.getStatus().getMessage());
-
-                            tb.addRow(row);
-                        }
-                        tb.setRowCount(10);
+                        int pages = (int) Math.ceil((double) count / REPORTS_PER_PAGE);
                         int page = 0;
                         if (args.length == 2) {
                             page = GeneralUtils.getInt(args[1], 0);
                         }
-                        PaginationUtil.sendPagedMessage(channel, tb.build(), page, sender, ButtonGroupConstants.REPORTS_LIST);
+                        // Each page is only read when it is shown.
+                        PaginationUtil.sendPagedMessage(channel, new LazyPaginationList(pages, p -> {
+                            PagedTableBuilder tb = new PagedTableBuilder();
+
+                            ArrayList<String> header = new ArrayList<>();
+                            header.add("Id");
+                            header.add("Reported");
+                            header.add("Time");
+                            header.add("Status");
+                            tb.setColumns(header);
+
+                            for (Report report : reportManager.getReports(p, REPORTS_PER_PAGE)) {
+                                ArrayList<String> row = new ArrayList<>();
+                                row.add(String.valueOf(report.getId()));
+                                row.add(MessageUtils.getTag(Getters.getUserById(String.valueOf(report.getReportedId()))));
+
+                                row.add(report.getTime().toLocalDateTime().atOffset(ZoneOffset.UTC).format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")) + " GMT/BST");
+
+                                row.add(report.getStatus().getMessage());
+
+                                tb.addRow(row);
+                            }
+                            return tb.buildPage(p, pages);
+                        }), page, sender, ButtonGroupConstants.REPORTS_LIST);
                     } else {
                         MessageUtils.sendErrorMessage("You need the permission `" + Permission.REPORTS_LIST + "`", channel);
                     }
@@ -128,7 +136,7 @@ public class ReportsCommand implements Command {
                             MessageUtils.sendInfoMessage("Current status is: **" + status.getMessage() + "**", channel, sender);
                         } else {
                             ReportStatus old = report.getStatus();
-                            report.setStatus(status);
+                            guild.getReportManager().setStatus(report, status);
                             MessageUtils.sendSuccessMessage(String.format("Changed status of Report with ID: **%d** to **%s**", id, status.getMessage()), channel, sender);
                             ModlogHandler.getInstance().postToModlog(guild, ModlogEvent.REPORT_EDITED, null, sender, null,
                                     new MessageEmbed.Field("Report ID", String.valueOf(id), true),
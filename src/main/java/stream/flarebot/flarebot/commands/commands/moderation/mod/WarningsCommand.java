@@ -10,51 +10,63 @@ import stream.flarebot.flarebot.commands.CommandType;
 import stream.flarebot.flarebot.objects.GuildWrapper;
 import stream.flarebot.flarebot.permissions.Permission;
 import stream.flarebot.flarebot.util.MessageUtils;
+import stream.flarebot.flarebot.util.WarningManager;
+import stream.flarebot.flarebot.util.buttons.ButtonGroupConstants;
+import stream.flarebot.flarebot.util.general.GeneralUtils;
 import stream.flarebot.flarebot.util.general.GuildUtils;
+import stream.flarebot.flarebot.util.pagination.LazyPaginationList;
+import stream.flarebot.flarebot.util.pagination.PagedEmbedBuilder;
+import stream.flarebot.flarebot.util.pagination.PaginationUtil;
 
 import java.awt.Color;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Map;
 
 public class WarningsCommand implements Command {
 
+    private static final int WARNINGS_PER_PAGE = 5;
+
     @Override
     public void onCommand(User sender, GuildWrapper guild, TextChannel channel, Message message, String[] args, Member member) {
-        if (args.length == 1) {
-            if (args[0].equalsIgnoreCase("stats")) {
-                Map.Entry<String, List<String>> highestEntry = Collections.max(guild.getWarningsMap().entrySet(),
-                        Comparator.comparingInt(entry -> entry.getValue().size()));
-                User mostWarned = GuildUtils.getUser(highestEntry.getKey(), guild.getGuildId(), true);
-                channel.sendMessage(new EmbedBuilder().setTitle("Warning stats", null)
-                        .addField("Total Warnings", String.valueOf(
-                                guild.getWarningsMap().values().stream().mapToLong(List::size).sum()), true)
-                        .addField("Users warned", String.valueOf(guild.getWarningsMap().size()), true)
-                        .addField("Most warned user", MessageUtils.getTag(mostWarned)
-                                + " - " + highestEntry.getValue().size() + " warnings", true)
-                        .setColor(Color.CYAN).build()).queue();
-            } else {
-                User user = GuildUtils.getUser(args[0]);
-                if (user == null) {
-                    MessageUtils.sendErrorMessage("That user could not be found!!", channel);
-                    return;
-                }
+        if (args.length == 1 && args[0].equalsIgnoreCase("stats")) {
+            WarningManager.Stats stats = guild.getWarnings().getStats();
+            if (stats == null) {
+                MessageUtils.sendInfoMessage("No one has been warned in this guild!", channel, sender);
+                return;
+            }
+            User mostWarned = GuildUtils.getUser(String.valueOf(stats.getMostWarned()), guild.getGuildId(), true);
+            channel.sendMessage(new EmbedBuilder().setTitle("Warning stats", null)
+                    .addField("Total Warnings", String.valueOf(stats.getTotal()), true)
+                    .addField("Users warned", String.valueOf(stats.getUsers()), true)
+                    .addField("Most warned user", MessageUtils.getTag(mostWarned)
+                            + " - " + stats.getMostWarnings() + " warnings", true)
+                    .setColor(Color.CYAN).build()).queue();
+        } else if (args.length == 1 || args.length == 2) {
+            User user = GuildUtils.getUser(args[0]);
+            if (user == null) {
+                MessageUtils.sendErrorMessage("That user could not be found!!", channel);
+                return;
+            }
+            WarningManager warnings = guild.getWarnings();
+            int count = warnings.getCount(user.getIdLong());
+            if (count == 0) {
+                MessageUtils.sendInfoMessage(user.getName() + " has no warnings!", channel, sender);
+                return;
+            }
+            int pages = (int) Math.ceil((double) count / WARNINGS_PER_PAGE);
+            int page = args.length == 2 ? GeneralUtils.getInt(args[1], 1) : 1;
+            // Newest first so the first page is the latest warnings, each page is only read when it is shown.
+            PagedEmbedBuilder<String> pe = new PagedEmbedBuilder<>(new LazyPaginationList(pages, p -> {
                 StringBuilder sb = new StringBuilder();
-                List<String> tmp = guild.getUserWarnings(user);
-                List<String> warnings = tmp.subList(Math.max(tmp.size() - 5, 0), tmp.size());
-                int i = 1;
-                for (String warning : warnings) {
+                int i = count - p * WARNINGS_PER_PAGE;
+                for (String warning : warnings.getWarnings(user.getIdLong(), p, WARNINGS_PER_PAGE)) {
                     sb.append(i).append(". ").append(warning.substring(0, Math.min(725, warning.length()))).append(warning.length() > 725 ? "..." : "").append("\n");
-                    i++;
+                    i--;
                 }
-                EmbedBuilder eb = new EmbedBuilder()
-                        .setTitle("Warnings for " + user.getName())
-                        .addField("Warning count", String.valueOf(tmp.size()), true)
-                        .addField("Last 5 warnings", "```md\n" + sb.toString().trim() + "\n```", false)
-                        .setColor(Color.CYAN);
-                channel.sendMessage(eb.build()).queue();
-            }
+                return sb.toString().trim();
+            }));
+            pe.setTitle("Warnings for " + user.getName() + " (" + count + ")");
+            pe.setCodeBlock("md");
+            pe.setColor(Color.CYAN);
+            PaginationUtil.sendEmbedPagedMessage(pe.build(), page - 1, channel, sender, ButtonGroupConstants.WARNINGS_LIST);
         } else {
             MessageUtils.sendUsage(this, channel, sender, args);
         }
@@ -72,7 +84,7 @@ public class WarningsCommand implements Command {
 
     @Override
     public String getUsage() {
-        return "`{%}warnings [user]` - Check the warnings on a guild or the warnings of a user.\n" +
+        return "`{%}warnings <user> [page]` - Check the warnings of a user, newest first.\n" +
                 "`{%}warnings stats` - Check warning stats for this guild.";
     }
 
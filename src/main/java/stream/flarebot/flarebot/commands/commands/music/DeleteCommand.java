@@ -12,7 +12,7 @@ import stream.flarebot.flarebot.util.MessageUtils;
 
 import java.awt.Color;
 import java.sql.PreparedStatement;
-import java.sql.ResultSet;
+import java.sql.SQLException;
 
 public class DeleteCommand implements Command {
 
@@ -24,16 +24,27 @@ public class DeleteCommand implements Command {
         }
         channel.sendTyping().complete();
         String name = MessageUtils.getMessage(args, 0);
-        DatabaseManager.run(connection -> {
-            PreparedStatement select = connection.prepareStatement("SELECT playlist_name FROM playlists WHERE playlist_name = ? AND guild_id = ?");
-            select.setString(1, name);
-            select.setLong(2, channel.getGuild().getIdLong());
-            ResultSet set = select.executeQuery();
-            if (set.next()) {
+        DatabaseManager.run("playlists.delete", connection -> {
+            connection.setAutoCommit(false);
+            boolean deleted;
+            try {
                 PreparedStatement delete = connection.prepareStatement("DELETE FROM playlists WHERE playlist_name = ? AND guild_id = ?");
                 delete.setString(1, name);
                 delete.setLong(2, channel.getGuild().getIdLong());
-                delete.execute();
+                deleted = delete.executeUpdate() > 0;
+
+                PreparedStatement deleteTracks = connection.prepareStatement("DELETE FROM playlist_tracks WHERE playlist_name = ? AND guild_id = ?");
+                deleteTracks.setString(1, name);
+                deleteTracks.setLong(2, channel.getGuild().getIdLong());
+                deleteTracks.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            if (deleted) {
                 channel.sendMessage(MessageUtils.getEmbed(sender)
                         .setDescription(String
                                 .format("Removed the playlist '%s'", name)).setColor(Color.green)
@@ -1,5 +1,6 @@
 package stream.flarebot.flarebot.commands.commands.music;
 
+import net.dv8tion.jda.core.EmbedBuilder;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.TextChannel;
@@ -10,6 +11,7 @@ import stream.flarebot.flarebot.music.VideoThread;
 import stream.flarebot.flarebot.objects.GuildWrapper;
 import stream.flarebot.flarebot.permissions.Permission;
 import stream.flarebot.flarebot.util.MessageUtils;
+import stream.flarebot.flarebot.util.general.MusicUtils;
 
 import java.util.List;
 
@@ -23,11 +25,19 @@ public class LoadCommand implements Command {
         }
         String name = MessageUtils.getMessage(args, 0);
 
+        int loaded = DataHandler.streamPlaylist(channel.getGuild().getIdLong(), name,
+                tracks -> MusicUtils.queueTracks(guild.getGuildId(), sender, tracks));
+        if (loaded > 0) {
+            channel.sendMessage(new EmbedBuilder().setTitle("Loaded Playlist").addField("Playlist", name, true)
+                    .addField("Song count", String.valueOf(loaded), true).build()).queue();
+            return;
+        }
+
+        // Saved before the tracks were stored so every song has to be looked up again.
         List<String> playlist = DataHandler.loadPlaylist(channel, sender, name);
         if (!playlist.isEmpty())
             VideoThread.getThread(name + '\u200B' + playlist.toString(), channel, sender).start();
 
-
     }
 
     @Override
@@ -22,7 +22,7 @@ public class PlaylistsCommand implements Command {
     @Override
     public void onCommand(User sender, GuildWrapper guild, TextChannel channel, Message message, String[] args, Member member) {
         channel.sendTyping().complete();
-        DatabaseManager.run(connection -> {
+        DatabaseManager.run("playlists.list", connection -> {
             PreparedStatement select = connection.prepareStatement("SELECT playlist_name FROM playlists WHERE guild_id=?");
             select.setLong(1, channel.getGuild().getIdLong());
             ResultSet resultSet = select.executeQuery();
@@ -16,9 +16,8 @@ import stream.flarebot.flarebot.objects.GuildWrapper;
 import stream.flarebot.flarebot.permissions.Permission;
 import stream.flarebot.flarebot.util.MessageUtils;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.stream.Collectors;
 
 
 public class SaveCommand implements Command {
@@ -45,10 +44,10 @@ public class SaveCommand implements Command {
 
         channel.sendTyping().complete();
 
-        List<String> tracks = playlist.stream()
-                .map(track -> track.getInfo().uri).collect(Collectors.toList());
+        List<AudioTrack> tracks = new ArrayList<>(playlist);
         if (currentlyPlaying != null) {
-            tracks.add(0, currentlyPlaying.getInfo().uri);
+            // Cloned so it's saved from the start rather than where it is now.
+            tracks.add(0, currentlyPlaying.makeClone());
         }
 
         if (tracks.isEmpty()) {
@@ -5,7 +5,6 @@ import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
 import org.joda.time.Period;
-import stream.flarebot.flarebot.FlareBot;
 import stream.flarebot.flarebot.commands.Command;
 import stream.flarebot.flarebot.commands.CommandType;
 import stream.flarebot.flarebot.objects.GuildWrapper;
@@ -21,7 +20,6 @@ import stream.flarebot.flarebot.util.pagination.PagedEmbedBuilder;
 import stream.flarebot.flarebot.util.pagination.PaginationUtil;
 
 import java.time.LocalDateTime;
-import java.util.Set;
 import java.util.TimeZone;
 
 public class RemindCommand implements Command {
@@ -31,20 +29,15 @@ public class RemindCommand implements Command {
         if (args.length < 2) {
             if (args.length == 1) {
                 if (args[0].equalsIgnoreCase("list")) {
-                    Set<FutureAction> futureActions = FlareBot.instance().getFutureActions();
                     StringBuilder actionBuilder = new StringBuilder();
-                    for (FutureAction action : futureActions) {
-                        if ((action.getAction().equals(FutureAction.Action.REMINDER)
-                                || action.getAction().equals(FutureAction.Action.DM_REMINDER))
-                                && action.getResponsible() == sender.getIdLong()) {
-                            LocalDateTime time = LocalDateTime.ofInstant(action.getExpires().toDate().toInstant(),
-                                    TimeZone.getTimeZone("UTC").toZoneId());
-                            actionBuilder.append("`").append(FormatUtils.truncate(100, action.getContent()))
-                                    .append("` at ").append(FormatUtils.formatTime(time)).append(" via ")
-                                    .append(action.getAction().equals(FutureAction.Action.REMINDER) ?
-                                            GuildUtils.getChannel(String.valueOf(action.getChannelId())).getAsMention()
-                                            : "Direct Messages").append("\n\n");
-                        }
+                    for (FutureAction action : FutureAction.getReminders(sender.getIdLong())) {
+                        LocalDateTime time = LocalDateTime.ofInstant(action.getExpires().toDate().toInstant(),
+                                TimeZone.getTimeZone("UTC").toZoneId());
+                        actionBuilder.append("`").append(FormatUtils.truncate(100, action.getContent()))
+                                .append("` at ").append(FormatUtils.formatTime(time)).append(" via ")
+                                .append(action.getAction().equals(FutureAction.Action.REMINDER) ?
+                                        GuildUtils.getChannel(String.valueOf(action.getChannelId())).getAsMention()
+                                        : "Direct Messages").append("\n\n");
                     }
                     PagedEmbedBuilder<String> pagedEmbedBuilder = new PagedEmbedBuilder<>(PaginationUtil
                             .splitStringToList(actionBuilder.toString(), PaginationUtil.SplitMethod.CHAR_COUNT, 1000));
@@ -52,13 +45,8 @@ public class RemindCommand implements Command {
                     PaginationUtil.sendEmbedPagedMessage(pagedEmbedBuilder.build(), 0, channel, sender,
                             ButtonGroupConstants.REMIND_LIST);
                 } else if (args[0].equalsIgnoreCase("clear")) {
-                    Set<FutureAction> futureActions = FlareBot.instance().getFutureActions();
-                    for (FutureAction action : futureActions) {
-                        if ((action.getAction().equals(FutureAction.Action.REMINDER)
-                                || action.getAction().equals(FutureAction.Action.DM_REMINDER))
-                                && action.getResponsible() == sender.getIdLong())
-                                action.delete();
-                    }
+                    for (FutureAction action : FutureAction.getReminders(sender.getIdLong()))
+                        action.delete();
                     MessageUtils.sendSuccessMessage("Cleared your reminders successfully", channel, sender);
                 } else {
                     MessageUtils.sendUsage(this, channel, sender, args);
@@ -11,30 +11,41 @@ import stream.flarebot.flarebot.commands.*;
 import stream.flarebot.flarebot.objects.GuildWrapper;
 import stream.flarebot.flarebot.permissions.Permission;
 import stream.flarebot.flarebot.util.MessageUtils;
+import stream.flarebot.flarebot.util.TagManager;
+import stream.flarebot.flarebot.util.buttons.ButtonGroupConstants;
 import stream.flarebot.flarebot.util.general.VariableUtils;
+import stream.flarebot.flarebot.util.pagination.LazyPaginationList;
+import stream.flarebot.flarebot.util.pagination.PagedEmbedBuilder;
+import stream.flarebot.flarebot.util.pagination.PaginationUtil;
 
 import java.awt.Color;
 import java.util.Arrays;
 
 public class TagsCommand implements Command {
 
+    private static final int TAGS_PER_PAGE = 100;
+
     @Override
     public void onCommand(User sender, GuildWrapper guild, TextChannel channel, Message message, String[] args, Member member) {
+        TagManager tags = guild.getTags();
         if (args.length == 0) {
-            if (guild.getTags().isEmpty()) {
+            int count = tags.getCount();
+            if (count == 0) {
                 MessageUtils.sendErrorMessage("There are currently no tags for this guild!\n" +
                         "Add a tag via `{%}tags add <tag_name> <tag_message>`." +
                         "\n\nView the usage for variables you can use!", channel);
                 return;
             }
-            channel.sendMessage(MessageUtils.getEmbed(sender).setTitle("Guild Tags", null).setColor(Color.CYAN)
-                    .setDescription("```\n" + StringUtils.join(guild.getTags().keySet(), ", ") + "\n```")
-                    .build()).queue();
+            // Each page is only read when it is shown.
+            PagedEmbedBuilder<String> pe = new PagedEmbedBuilder<>(new LazyPaginationList(
+                    (int) Math.ceil((double) count / TAGS_PER_PAGE),
+                    page -> StringUtils.join(tags.getNames(page, TAGS_PER_PAGE), ", ")));
+            pe.setTitle("Guild Tags");
+            pe.setCodeBlock("");
+            pe.setColor(Color.CYAN);
+            PaginationUtil.sendEmbedPagedMessage(pe.build(), 0, channel, sender, ButtonGroupConstants.TAGS_LIST);
         } else if (args.length == 1) {
-            if (guild.getTags().containsKey(args[0].toLowerCase()))
-                sendTag(guild, args[0].toLowerCase(), sender, channel, null);
-            else
-                MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
+            sendTag(guild, tags, args[0].toLowerCase(), sender, channel, null);
         } else if (args.length == 2) {
             if (args[0].equalsIgnoreCase("add")) {
                 MessageUtils.sendErrorMessage("This seems to be invalid ¯\\_(ツ)_/¯\n"
@@ -45,8 +56,7 @@ public class TagsCommand implements Command {
                     MessageUtils.sendErrorMessage("You need the permission `" + Permission.TAGS_ADMIN + "` to do this!", channel, sender);
                     return;
                 }
-                if (guild.getTags().containsKey(args[1].toLowerCase())) {
-                    guild.getTags().remove(args[1]);
+                if (tags.remove(args[1])) {
                     MessageUtils.sendSuccessMessage("You successfully removed the tag `" + args[1] + "`!",
                             channel, sender);
                 } else {
@@ -57,21 +67,19 @@ public class TagsCommand implements Command {
                         + "Usage: `{%}tags edit " + args[1] + " <tag_message>`" +
                         "\n\nView the usage for variables you can use!", channel);
             } else if (args[0].equalsIgnoreCase("raw")) {
-                if (guild.getTags().containsKey(args[1].toLowerCase())) {
+                String content = tags.get(args[1]);
+                if (content != null) {
                     channel.sendMessage(MessageUtils.getEmbed(sender)
                             .setColor(Color.CYAN)
                             .addField("Tag", args[1].toLowerCase(), false)
-                            .addField("Content", "```" + guild.getTags().get(args[1].toLowerCase()) + "```", false)
+                            .addField("Content", "```" + content + "```", false)
                             .build()).queue();
                 } else {
                     MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
                 }
             } else {
-                if (guild.getTags().containsKey(args[0].toLowerCase()))
-                    sendTag(guild, args[0].toLowerCase(), sender, channel,
-                            Arrays.copyOfRange(args, 1, args.length));
-                else
-                    MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
+                sendTag(guild, tags, args[0].toLowerCase(), sender, channel,
+                        Arrays.copyOfRange(args, 1, args.length));
             }
         } else {
             if (args[0].equalsIgnoreCase("add")) {
@@ -79,12 +87,12 @@ public class TagsCommand implements Command {
                     MessageUtils.sendErrorMessage("You need the permission `" + Permission.TAGS_ADMIN + "` to do this!", channel, sender);
                     return;
                 }
-                if (guild.getTags().containsKey(args[1].toLowerCase())) {
+                if (tags.exists(args[1])) {
                     MessageUtils.sendErrorMessage("This tag already exists!", channel);
                     return;
                 }
 
-                guild.getTags().put(args[1].toLowerCase(), MessageUtils.getMessage(args, 2));
+                tags.set(args[1], MessageUtils.getMessage(args, 2));
                 MessageUtils.sendSuccessMessage("You successfully added the tag `" + args[1] + "`!", channel,
                         sender);
             } else if (args[0].equalsIgnoreCase("edit")) {
@@ -92,26 +100,28 @@ public class TagsCommand implements Command {
                     MessageUtils.sendErrorMessage("You need the permission `" + Permission.TAGS_ADMIN + "` to do this!", channel, sender);
                     return;
                 }
-                if (!guild.getTags().containsKey(args[1].toLowerCase())) {
+                if (!tags.exists(args[1])) {
                     MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
                     return;
                 }
 
-                guild.getTags().put(args[1].toLowerCase(), MessageUtils.getMessage(args, 2));
+                tags.set(args[1], MessageUtils.getMessage(args, 2));
                 MessageUtils.sendSuccessMessage("You successfully edited the tag `" + args[1] + "`!", channel,
                         sender);
             } else {
-                if (guild.getTags().containsKey(args[0].toLowerCase()))
-                    sendTag(guild, args[0].toLowerCase(), sender, channel,
-                            Arrays.copyOfRange(args, 1, args.length));
-                else
-                    MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
+                sendTag(guild, tags, args[0].toLowerCase(), sender, channel,
+                        Arrays.copyOfRange(args, 1, args.length));
             }
         }
     }
 
-    private void sendTag(GuildWrapper wrapper, String tag, User user, TextChannel channel, String[] args) {
-        String msg = parseTag(wrapper.getGuild(), tag, wrapper.getTags().get(tag), user, channel, args);
+    private void sendTag(GuildWrapper wrapper, TagManager tags, String tag, User user, TextChannel channel, String[] args) {
+        String content = tags.get(tag);
+        if (content == null) {
+            MessageUtils.sendErrorMessage("This tag doesn't exist!", channel);
+            return;
+        }
+        String msg = parseTag(wrapper.getGuild(), tag, content, user, channel, args);
         channel.sendMessage(msg).queue();
     }
 
@@ -2,21 +2,34 @@ package stream.flarebot.flarebot.database;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.prometheus.client.Histogram;
 import org.postgresql.ds.PGSimpleDataSource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import stream.flarebot.flarebot.Config;
+import stream.flarebot.flarebot.metrics.Metrics;
 
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class DatabaseManager {
 
     private static final Logger logger = LoggerFactory.getLogger(DatabaseManager.class);
 
+    private static final int EXECUTOR_QUEUE_SIZE = 1000;
+    private static final String UNNAMED = "unnamed";
+    private static final double NANOS_PER_SECOND = 1_000_000_000D;
+
     private static HikariConfig config;
     private static HikariDataSource ds;
+    private static ExecutorService executor;
 
     public static void init() {
         config = new HikariConfig();
@@ -25,26 +38,97 @@ public class DatabaseManager {
         dataSource.setServerName(Config.INS.getDatabaseHost());
         dataSource.setPortNumber(Config.INS.getDatabasePort());
         dataSource.setDatabaseName(Config.INS.getDatabaseName());
+        // Sends batched inserts, like the guild upserts, as multi row inserts.
+        dataSource.setReWriteBatchedInserts(true);
 
         config.setDataSource(dataSource);
         config.setUsername(Config.INS.getDatabaseUsername());
         config.setPassword(Config.INS.getDatabasePassword());
         config.addDataSourceProperty("cachePrepStmts", "true");
         config.addDataSourceProperty("prepStmtCacheSize", "100");
+        config.setMaximumPoolSize(Config.INS.getHikariPoolSize());
 
         ds = new HikariDataSource(config);
+
+        // Sized to the pool so queued work waits here instead of holding a thread while waiting for a connection.
+        AtomicInteger threads = new AtomicInteger();
+        executor = new ThreadPoolExecutor(Config.INS.getHikariPoolSize(), Config.INS.getHikariPoolSize(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(EXECUTOR_QUEUE_SIZE),
+                r -> new Thread(r, "Database-" + threads.incrementAndGet()));
     }
 
     public static void run(Query query) {
-        try {
-            Connection connection = ds.getConnection();
+        run(UNNAMED, query);
+    }
+
+    /**
+     * Run a query which doesn't return anything, any exception is logged.
+     *
+     * @param name  The name of the query, this is what the query is recorded as in the metrics.
+     * @param query The query to run.
+     */
+    public static void run(String name, Query query) {
+        query(name, connection -> {
             query.run(connection);
-            connection.close();
+            return null;
+        });
+    }
+
+    /**
+     * Run a query and get its result, any exception is logged.
+     *
+     * @param name  The name of the query, this is what the query is recorded as in the metrics.
+     * @param query The query to run.
+     * @return The result of the query or null if it failed.
+     */
+    @Nullable
+    public static <T> T query(String name, ResultQuery<T> query) {
+        try {
+            return execute(name, query);
         } catch (SQLException e) {
-            logger.error("SQL query failed", e);
+            logger.error("SQL query " + name + " failed", e);
+            return null;
         }
     }
 
+    /**
+     * Run a query and get its result, for callers which need to handle a failure themselves. The connection is
+     * always given back to the pool and closing it closes any statements and result sets which are still open.
+     *
+     * @param name  The name of the query, this is what the query is recorded as in the metrics.
+     * @param query The query to run.
+     * @return The result of the query.
+     * @throws SQLException If a connection could not be got or the query failed.
+     */
+    public static <T> T execute(String name, ResultQuery<T> query) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection;
+        try {
+            connection = ds.getConnection();
+        } finally {
+            Metrics.databasePoolWait.observe((System.nanoTime() - start) / NANOS_PER_SECOND);
+        }
+        Histogram.Timer timer = Metrics.databaseQueries.labels(name).startTimer();
+        try (Connection conn = connection) {
+            return query.run(conn);
+        } catch (SQLException e) {
+            Metrics.databaseErrors.labels(name).inc();
+            throw e;
+        } finally {
+            timer.observeDuration();
+        }
+    }
+
+    /**
+     * The executor for database work which should not block the calling thread, for example loading guilds from
+     * the JDA event threads. This is bounded and will reject work once the queue is full.
+     *
+     * @return The database executor.
+     */
+    public static ExecutorService getExecutor() {
+        return executor;
+    }
+
     public static HikariConfig getConfig() {
         return config;
     }
@@ -0,0 +1,262 @@
+package stream.flarebot.flarebot.database;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Compact binary format for {@link GuildWrapper} snapshots.
+ * <p>
+ * The guild is mapped by Gson exactly like the JSON storage, so every field is covered without maintaining a
+ * schema here, but the tree is written as tagged binary values instead of text. Object keys are written once into a
+ * key table and referenced by index, integers are zigzag varints and strings are length prefixed UTF-8 without any
+ * escaping. Large bodies are deflated.
+ * <p>
+ * Layout: {@code 'F' 'G'}, codec version, {@link GuildWrapper#DATA_VERSION} as a varint, flags, then the body
+ * (key table followed by the root value).
+ */
+public class GuildCodec {
+
+    public static final byte CODEC_VERSION = 1;
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'G';
+
+    private static final byte FLAG_DEFLATED = 1;
+    private static final int DEFLATE_THRESHOLD = 1024;
+
+    private static final byte NULL = 0;
+    private static final byte FALSE = 1;
+    private static final byte TRUE = 2;
+    private static final byte INTEGER = 3;
+    private static final byte DOUBLE = 4;
+    private static final byte STRING = 5;
+    private static final byte ARRAY = 6;
+    private static final byte OBJECT = 7;
+    private static final byte DECIMAL = 8;
+
+    public static byte[] encode(GuildWrapper wrapper) {
+        try {
+            Map<String, Integer> keys = new LinkedHashMap<>();
+            ByteArrayOutputStream values = new ByteArrayOutputStream();
+            writeValue(new DataOutputStream(values), GuildGson.GSON.toJsonTree(wrapper), keys);
+
+            ByteArrayOutputStream body = new ByteArrayOutputStream(values.size() + keys.size() * 8);
+            DataOutputStream bodyOut = new DataOutputStream(body);
+            writeVarInt(bodyOut, keys.size());
+            for (String key : keys.keySet())
+                writeString(bodyOut, key);
+            values.writeTo(bodyOut);
+            bodyOut.flush();
+
+            boolean deflate = body.size() > DEFLATE_THRESHOLD;
+            ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + 8);
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeByte(MAGIC_0);
+            header.writeByte(MAGIC_1);
+            header.writeByte(CODEC_VERSION);
+            writeVarLong(header, GuildWrapper.DATA_VERSION);
+            header.writeByte(deflate ? FLAG_DEFLATED : 0);
+            header.flush();
+            if (deflate) {
+                try (OutputStream deflater = new DeflaterOutputStream(out)) {
+                    body.writeTo(deflater);
+                }
+            } else
+                body.writeTo(out);
+            return out.toByteArray();
+        } catch (IOException e) {
+            // Only in memory streams are used so this can't really happen.
+            throw new IllegalStateException("Failed to encode guild " + wrapper.getGuildId(), e);
+        }
+    }
+
+    public static GuildWrapper decode(byte[] data) {
+        try {
+            DataInputStream header = new DataInputStream(new ByteArrayInputStream(data));
+            if (header.readByte() != MAGIC_0 || header.readByte() != MAGIC_1)
+                throw new IllegalArgumentException("Not an encoded guild");
+            byte codecVersion = header.readByte();
+            if (codecVersion != CODEC_VERSION)
+                throw new IllegalArgumentException("Unknown guild codec version " + codecVersion);
+            long dataVersion = readVarLong(header);
+            if (dataVersion > GuildWrapper.DATA_VERSION)
+                throw new IllegalArgumentException("Guild data version " + dataVersion + " is newer than "
+                        + GuildWrapper.DATA_VERSION);
+            byte flags = header.readByte();
+
+            InputStream body = header;
+            if ((flags & FLAG_DEFLATED) != 0)
+                body = new InflaterInputStream(header);
+            DataInputStream in = new DataInputStream(body);
+
+            int keyCount = readVarInt(in);
+            List<String> keys = new ArrayList<>(keyCount);
+            for (int i = 0; i < keyCount; i++)
+                keys.add(readString(in));
+            GuildWrapper wrapper = GuildGson.GSON.fromJson(readValue(in, keys), GuildWrapper.class);
+            // Written by an older version, rewrite it with the current layout next flush.
+            if (dataVersion < GuildWrapper.DATA_VERSION)
+                wrapper.markDirty();
+            return wrapper;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed encoded guild", e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, JsonElement element, Map<String, Integer> keys)
+            throws IOException {
+        if (element == null || element.isJsonNull()) {
+            out.writeByte(NULL);
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            out.writeByte(OBJECT);
+            writeVarInt(out, object.entrySet().size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                Integer index = keys.get(entry.getKey());
+                if (index == null) {
+                    index = keys.size();
+                    keys.put(entry.getKey(), index);
+                }
+                writeVarInt(out, index);
+                writeValue(out, entry.getValue(), keys);
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            out.writeByte(ARRAY);
+            writeVarInt(out, array.size());
+            for (JsonElement value : array)
+                writeValue(out, value, keys);
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(primitive.getAsBoolean() ? TRUE : FALSE);
+            } else if (primitive.isString()) {
+                out.writeByte(STRING);
+                writeString(out, primitive.getAsString());
+            } else {
+                Number number = primitive.getAsNumber();
+                if (number instanceof Long || number instanceof Integer || number instanceof Short
+                        || number instanceof Byte) {
+                    out.writeByte(INTEGER);
+                    writeVarLong(out, number.longValue());
+                } else if (number instanceof Double || number instanceof Float) {
+                    out.writeByte(DOUBLE);
+                    out.writeDouble(number.doubleValue());
+                } else {
+                    out.writeByte(DECIMAL);
+                    writeString(out, number.toString());
+                }
+            }
+        }
+    }
+
+    private static JsonElement readValue(DataInputStream in, List<String> keys) throws IOException {
+        byte type = in.readByte();
+        switch (type) {
+            case NULL:
+                return JsonNull.INSTANCE;
+            case FALSE:
+                return new JsonPrimitive(false);
+            case TRUE:
+                return new JsonPrimitive(true);
+            case INTEGER:
+                return new JsonPrimitive(readVarLong(in));
+            case DOUBLE:
+                return new JsonPrimitive(in.readDouble());
+            case DECIMAL:
+                return new JsonPrimitive(new BigDecimal(readString(in)));
+            case STRING:
+                return new JsonPrimitive(readString(in));
+            case ARRAY:
+                int length = readVarInt(in);
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < length; i++)
+                    array.add(readValue(in, keys));
+                return array;
+            case OBJECT:
+                int size = readVarInt(in);
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = keys.get(readVarInt(in));
+                    object.add(key, readValue(in, keys));
+                }
+                return object;
+            default:
+                throw new IOException("Unknown value type " + type);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    /**
+     * Writes a zigzag encoded varint so small negative numbers (like the -1 defaults) stay small.
+     */
+    static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+            zigzag >>>= 7;
+        }
+        out.writeByte((int) zigzag);
+    }
+
+    static long readVarLong(DataInputStream in) throws IOException {
+        long zigzag = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        throw new IOException("Malformed varint");
+    }
+}
@@ -0,0 +1,16 @@
+package stream.flarebot.flarebot.database;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+
+/**
+ * The Gson guilds are stored with. This is kept out of {@link stream.flarebot.flarebot.DataHandler} since loading
+ * that needs the bot config, the codecs and benchmarks can use this without it.
+ */
+public class GuildGson {
+
+    public static final Gson GSON = new GsonBuilder().create();
+
+    private GuildGson() {
+    }
+}
@@ -0,0 +1,215 @@
+package stream.flarebot.flarebot.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.exceptions.JedisException;
+import stream.flarebot.flarebot.Config;
+import stream.flarebot.flarebot.FlareBot;
+import stream.flarebot.flarebot.metrics.Metrics;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.LongConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Second cache tier for guilds which is shared between all FlareBot processes. Guilds are stored encoded with
+ * {@link GuildCodec} and expire after {@link Config#getRedisGuildCacheTtl()} seconds.
+ * <p>
+ * Whenever a process writes guilds to the database it also replaces them here and publishes their IDs on
+ * {@link #INVALIDATE_CHANNEL}, the other processes then drop their in memory copy so the next access reads the new
+ * one. Any Redis failure is logged and treated as a miss, the database is always the source of truth.
+ */
+public class GuildRedisCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuildRedisCache.class);
+
+    public static final String INVALIDATE_CHANNEL = "flarebot:guilds:invalidate";
+    private static final String KEY_PREFIX = "flarebot:guild:";
+    private static final byte[] NX = "NX".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] EX = "EX".getBytes(StandardCharsets.UTF_8);
+    private static final long RESUBSCRIBE_DELAY = 5000;
+
+    // Used to ignore our own invalidations.
+    private final String instanceId = UUID.randomUUID().toString();
+    private final LongConsumer invalidate;
+
+    /**
+     * @param invalidate Evicts a guild from the in memory cache when another process changed it.
+     */
+    public GuildRedisCache(LongConsumer invalidate) {
+        this.invalidate = invalidate;
+    }
+
+    public boolean isEnabled() {
+        return Config.INS.getRedisGuildCacheTtl() > 0 && RedisController.getJedisPool() != null;
+    }
+
+    /**
+     * Start listening for guilds changed by other processes. Does nothing if the cache is disabled.
+     */
+    public void start() {
+        if (!isEnabled()) return;
+        Thread thread = new Thread(this::subscribe, "Redis-GuildInvalidation");
+        thread.setDaemon(true);
+        thread.start();
+        logger.info("Caching guilds in Redis for {} seconds", Config.INS.getRedisGuildCacheTtl());
+    }
+
+    /**
+     * Get guilds from Redis.
+     *
+     * @param guildIds The IDs of the guilds.
+     * @return The guilds which were cached, this is empty if the cache is disabled or Redis failed.
+     */
+    public Map<Long, GuildWrapper> getAll(Collection<Long> guildIds) {
+        Map<Long, GuildWrapper> found = new HashMap<>();
+        if (!isEnabled() || guildIds.isEmpty()) return found;
+
+        Long[] ids = guildIds.toArray(new Long[0]);
+        byte[][] keys = new byte[ids.length][];
+        for (int i = 0; i < ids.length; i++)
+            keys[i] = getKey(ids[i]);
+        List<byte[]> values;
+        try {
+            values = RedisController.call("mget", null, 0, jedis -> jedis.mget(keys));
+        } catch (JedisException e) {
+            logger.warn("Failed to get guilds from Redis", e);
+            return found;
+        }
+        long payload = 0;
+        for (int i = 0; i < ids.length; i++) {
+            byte[] value = values.get(i);
+            if (value == null) continue;
+            payload += value.length;
+            try {
+                found.put(ids[i], GuildCodec.decode(value));
+            } catch (IllegalArgumentException e) {
+                // Written by a newer version or corrupt, either way the database copy is used instead.
+                logger.warn("Ignoring unreadable cached guild " + ids[i], e);
+            }
+        }
+        Metrics.redisPayloads.labels("mget").observe(payload);
+        Metrics.redisGuildCache.labels("hit").inc(found.size());
+        Metrics.redisGuildCache.labels("miss").inc(ids.length - found.size());
+        return found;
+    }
+
+    /**
+     * Cache guilds which were just read from the database. Guilds which are already cached are left alone since
+     * another process could have written a newer copy after we read ours.
+     *
+     * @param guilds The guilds which were loaded.
+     */
+    public void putLoaded(Collection<GuildWrapper> guilds) {
+        if (!isEnabled() || guilds.isEmpty()) return;
+        int ttl = Config.INS.getRedisGuildCacheTtl();
+        List<byte[]> encoded = guilds.stream().map(GuildCodec::encode).collect(Collectors.toList());
+        try {
+            RedisController.call("guild_put_loaded", null, totalSize(encoded), jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                int i = 0;
+                for (GuildWrapper wrapper : guilds)
+                    pipeline.set(getKey(wrapper.getGuildIdLong()), encoded.get(i++), NX, EX, ttl);
+                pipeline.sync();
+                return null;
+            });
+        } catch (JedisException e) {
+            logger.warn("Failed to cache guilds in Redis", e);
+        }
+    }
+
+    /**
+     * Replace guilds which were just written to the database and tell the other processes to drop their copies.
+     *
+     * @param guilds The guilds which were written.
+     */
+    public void putSaved(Collection<GuildWrapper> guilds) {
+        if (!isEnabled() || guilds.isEmpty()) return;
+        int ttl = Config.INS.getRedisGuildCacheTtl();
+        List<byte[]> encoded = guilds.stream().map(GuildCodec::encode).collect(Collectors.toList());
+        try {
+            RedisController.call("guild_put_saved", null, totalSize(encoded), jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                int i = 0;
+                for (GuildWrapper wrapper : guilds)
+                    pipeline.setex(getKey(wrapper.getGuildIdLong()), ttl, encoded.get(i++));
+                pipeline.publish(INVALIDATE_CHANNEL, instanceId + " " + guilds.stream()
+                        .map(GuildWrapper::getGuildId)
+                        .collect(Collectors.joining(",")));
+                pipeline.sync();
+                return null;
+            });
+        } catch (JedisException e) {
+            // The cached copies are now older than the database, drop them so nobody reads them.
+            logger.warn("Failed to update guilds in Redis", e);
+            evict(guilds);
+        }
+    }
+
+    private void evict(Collection<GuildWrapper> guilds) {
+        byte[][] keys = guilds.stream().map(wrapper -> getKey(wrapper.getGuildIdLong())).toArray(byte[][]::new);
+        try {
+            RedisController.call("del", null, 0, jedis -> jedis.del(keys));
+        } catch (JedisException e) {
+            logger.error("Failed to evict guilds from Redis, they may be stale until they expire", e);
+        }
+    }
+
+    private static long totalSize(List<byte[]> values) {
+        long size = 0;
+        for (byte[] value : values)
+            size += value.length;
+        return size;
+    }
+
+    private void subscribe() {
+        JedisPool pool = RedisController.getJedisPool();
+        while (!FlareBot.EXITING.get()) {
+            try (Jedis jedis = pool.getResource()) {
+                // Blocks until the connection is lost.
+                jedis.subscribe(new JedisPubSub() {
+                    @Override
+                    public void onMessage(String channel, String message) {
+                        handleInvalidation(message);
+                    }
+                }, INVALIDATE_CHANNEL);
+            } catch (JedisException e) {
+                logger.warn("Lost the guild invalidation subscription, resubscribing", e);
+            }
+            try {
+                Thread.sleep(RESUBSCRIBE_DELAY);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void handleInvalidation(String message) {
+        int split = message.indexOf(' ');
+        if (split == -1 || message.substring(0, split).equals(instanceId)) return;
+        for (String guildId : message.substring(split + 1).split(",")) {
+            try {
+                invalidate.accept(Long.parseLong(guildId));
+                Metrics.redisGuildCache.labels("invalidated").inc();
+            } catch (NumberFormatException e) {
+                logger.warn("Invalid guild invalidation message: {}", message);
+                return;
+            }
+        }
+    }
+
+    private static byte[] getKey(long guildId) {
+        return (KEY_PREFIX + guildId).getBytes(StandardCharsets.UTF_8);
+    }
+}
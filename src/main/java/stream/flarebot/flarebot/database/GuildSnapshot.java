@@ -0,0 +1,194 @@
+package stream.flarebot.flarebot.database;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.objects.GuildWrapper;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A copy of the guild cache written to a local file on shutdown so the cache can be filled from it after a restart
+ * instead of from the database.
+ * <p>
+ * The file is memory mapped and guilds are only decoded when they are first requested. Each guild is handed out
+ * once, after that the cached copy is the one which is kept up to date. The file is deleted as soon as it is opened
+ * so it can never be read twice, snapshots from another {@link GuildWrapper#DATA_VERSION} or which are too old are
+ * ignored.
+ * <p>
+ * Layout: {@code 'F' 'S'}, format version, {@link GuildWrapper#DATA_VERSION}, creation time, guild count, then an
+ * index of (guild ID, offset, length) sorted by guild ID and finally the guilds encoded with {@link GuildCodec}.
+ */
+public class GuildSnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(GuildSnapshot.class);
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'S';
+    private static final byte FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 2 + 1 + 8 + 8 + 4;
+    private static final int INDEX_ENTRY_SIZE = 8 + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final long expires;
+    private final BitSet taken;
+
+    private GuildSnapshot(ByteBuffer buffer, int count, long expires) {
+        this.buffer = buffer;
+        this.count = count;
+        this.expires = expires;
+        this.taken = new BitSet(count);
+    }
+
+    /**
+     * Write guilds to a snapshot. Guilds with changes which haven't been saved are left out since they would not
+     * be saved after being loaded from the snapshot.
+     *
+     * @param file   The file to write to, this is replaced once the snapshot is complete.
+     * @param guilds The guilds to write.
+     */
+    public static void write(File file, Collection<GuildWrapper> guilds) {
+        long start = System.currentTimeMillis();
+        List<long[]> index = new ArrayList<>(guilds.size());
+        List<byte[]> data = new ArrayList<>(guilds.size());
+        long offset = 0;
+        for (GuildWrapper wrapper : guilds) {
+            if (wrapper.isDirty()) continue;
+            byte[] encoded = GuildCodec.encode(wrapper);
+            index.add(new long[]{wrapper.getGuildIdLong(), offset, encoded.length});
+            data.add(encoded);
+            offset += encoded.length;
+        }
+        index.sort((a, b) -> Long.compare(a[0], b[0]));
+        long dataStart = HEADER_SIZE + (long) index.size() * INDEX_ENTRY_SIZE;
+        if (dataStart + offset > Integer.MAX_VALUE) {
+            logger.warn("Not writing a guild snapshot, {} guilds is too big for one file", index.size());
+            return;
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+            out.setLength(dataStart + offset);
+            MappedByteBuffer buffer = out.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, dataStart + offset);
+            buffer.put(MAGIC_0).put(MAGIC_1).put(FORMAT_VERSION)
+                    .putLong(GuildWrapper.DATA_VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(index.size());
+            for (long[] entry : index)
+                buffer.putLong(entry[0]).putInt((int) (dataStart + entry[1])).putInt((int) entry[2]);
+            for (byte[] encoded : data)
+                buffer.put(encoded);
+            buffer.force();
+        } catch (IOException e) {
+            logger.error("Failed to write the guild snapshot", e);
+            temp.delete();
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.error("Failed to replace the guild snapshot", e);
+            temp.delete();
+            return;
+        }
+        logger.info("Wrote a snapshot of {} guilds ({} bytes) in {}ms", index.size(), dataStart + offset,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Open a snapshot written by {@link #write(File, Collection)}, the file is deleted once it is mapped.
+     *
+     * @param file   The snapshot file.
+     * @param maxAge How long the snapshot can be used for after it was written in milliseconds.
+     * @return The snapshot or null if there is no usable snapshot.
+     */
+    @Nullable
+    public static GuildSnapshot open(File file, long maxAge) {
+        if (!file.exists()) return null;
+        ByteBuffer buffer;
+        try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+            buffer = in.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, in.length());
+        } catch (IOException e) {
+            logger.error("Failed to open the guild snapshot", e);
+            return null;
+        } finally {
+            // The mapping stays valid, this makes sure a crash can't leave a stale snapshot to be read next start.
+            if (!file.delete())
+                logger.warn("Failed to delete the guild snapshot {}", file);
+        }
+
+        if (buffer.limit() < HEADER_SIZE || buffer.get() != MAGIC_0 || buffer.get() != MAGIC_1
+                || buffer.get() != FORMAT_VERSION) {
+            logger.warn("Ignoring an invalid guild snapshot");
+            return null;
+        }
+        long dataVersion = buffer.getLong();
+        if (dataVersion != GuildWrapper.DATA_VERSION) {
+            logger.info("Ignoring a guild snapshot for data version {}, the current version is {}", dataVersion,
+                    GuildWrapper.DATA_VERSION);
+            return null;
+        }
+        long expires = buffer.getLong() + maxAge;
+        if (System.currentTimeMillis() > expires) {
+            logger.info("Ignoring an outdated guild snapshot");
+            return null;
+        }
+        int count = buffer.getInt();
+        if (buffer.limit() < HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE) {
+            logger.warn("Ignoring a truncated guild snapshot");
+            return null;
+        }
+        logger.info("Opened a snapshot of {} guilds", count);
+        return new GuildSnapshot(buffer, count, expires);
+    }
+
+    /**
+     * Take a guild out of the snapshot.
+     *
+     * @param guildId The ID of the guild.
+     * @return The guild or null if it isn't in the snapshot, has already been taken or the snapshot is too old.
+     */
+    @Nullable
+    public synchronized GuildWrapper take(long guildId) {
+        if (System.currentTimeMillis() > expires) return null;
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int entry = HEADER_SIZE + mid * INDEX_ENTRY_SIZE;
+            long id = buffer.getLong(entry);
+            if (id < guildId)
+                low = mid + 1;
+            else if (id > guildId)
+                high = mid - 1;
+            else {
+                if (taken.get(mid)) return null;
+                taken.set(mid);
+                byte[] encoded = new byte[buffer.getInt(entry + 12)];
+                ByteBuffer data = buffer.duplicate();
+                data.position(buffer.getInt(entry + 8));
+                data.get(encoded);
+                try {
+                    return GuildCodec.decode(encoded);
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Ignoring unreadable guild " + guildId + " in the snapshot", e);
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
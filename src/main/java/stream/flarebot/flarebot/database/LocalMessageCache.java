@@ -0,0 +1,257 @@
+package stream.flarebot.flarebot.database;
+
+import io.prometheus.client.Gauge;
+import net.dv8tion.jda.core.entities.Message;
+import stream.flarebot.flarebot.metrics.Metrics;
+import stream.flarebot.flarebot.scheduler.FlareBotTask;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps messages in memory for setups which run a single process and don't want to run Redis.
+ * <p>
+ * Each channel has a ring of the last {@link stream.flarebot.flarebot.Config#getMessageCacheChannelSize()} messages
+ * with the IDs and timestamps in long arrays and a small open addressing index from message ID to slot. The content
+ * of every message goes into one shared circular byte arena of {@link stream.flarebot.flarebot.Config#getMessageCacheSize()}
+ * bytes, once it is full the oldest content is overwritten and those messages count as not cached. This keeps the
+ * memory used fixed no matter how many channels are active.
+ */
+public class LocalMessageCache implements MessageCache {
+
+    private static final long CLEANUP_INTERVAL = TimeUnit.MINUTES.toMillis(10);
+
+    private final Map<Long, Ring> rings = new ConcurrentHashMap<>();
+    private final Arena arena;
+    private final int channelSize;
+    private final AtomicLong ringBytes = new AtomicLong();
+
+    /**
+     * @param size        The size of the content arena in bytes.
+     * @param channelSize The amount of messages kept per channel, rounded up to a power of 2.
+     */
+    public LocalMessageCache(int size, int channelSize) {
+        this.arena = new Arena(size);
+        this.channelSize = Integer.highestOneBit(Math.max(channelSize, 2) - 1) << 1;
+        Metrics.messageCacheBytes.setChild(new Gauge.Child() {
+            @Override
+            public double get() {
+                return (double) size + ringBytes.get();
+            }
+        });
+        new FlareBotTask("LocalMessageCache-Cleanup") {
+            @Override
+            public void run() {
+                cleanup();
+            }
+        }.repeat(CLEANUP_INTERVAL, CLEANUP_INTERVAL);
+    }
+
+    @Override
+    public void put(Message message) {
+        byte[] content = message.getContentRaw().getBytes(StandardCharsets.UTF_8);
+        long guildId = message.getGuild().getIdLong();
+        // Inside compute so the cleanup can't drop the ring while the message is added.
+        rings.compute(message.getChannel().getIdLong(), (channelId, ring) -> {
+            if (ring == null)
+                ring = new Ring(guildId);
+            ring.put(message.getIdLong(), message.getAuthor().getIdLong(),
+                    message.getCreationTime().toInstant().toEpochMilli(), content);
+            return ring;
+        });
+    }
+
+    @Nullable
+    @Override
+    public RedisMessage replace(Message message) {
+        Ring ring = rings.get(message.getChannel().getIdLong());
+        RedisMessage old = ring == null ? null : ring.replace(message.getChannel().getIdLong(), message.getIdLong(),
+                message.getContentRaw().getBytes(StandardCharsets.UTF_8));
+        Metrics.messageCacheRequests.labels(old == null ? "miss" : "hit").inc();
+        return old;
+    }
+
+    @Nullable
+    @Override
+    public RedisMessage remove(long channelId, long messageId) {
+        Ring ring = rings.get(channelId);
+        RedisMessage deleted = ring == null ? null : ring.remove(channelId, messageId);
+        Metrics.messageCacheRequests.labels(deleted == null ? "miss" : "hit").inc();
+        return deleted;
+    }
+
+    /**
+     * Drop the rings of channels where even the newest message has been pushed out of the arena.
+     */
+    private void cleanup() {
+        for (Long channelId : rings.keySet())
+            rings.computeIfPresent(channelId, (id, ring) -> arena.isLive(ring.getNewest()) ? ring : ring.release());
+    }
+
+    private final class Ring {
+
+        private final long guildId;
+        private final long[] ids;
+        private final long[] authors;
+        private final long[] timestamps;
+        private final long[] positions;
+        private final int[] lengths;
+        // Slot + 1 for each message ID, 0 is empty. Twice the size of the ring so probes stay short.
+        private final int[] index;
+        private final int indexMask;
+        private int next;
+        private long newest = -1;
+
+        private Ring(long guildId) {
+            this.guildId = guildId;
+            this.ids = new long[channelSize];
+            this.authors = new long[channelSize];
+            this.timestamps = new long[channelSize];
+            this.positions = new long[channelSize];
+            this.lengths = new int[channelSize];
+            this.index = new int[channelSize * 2];
+            this.indexMask = index.length - 1;
+            ringBytes.addAndGet(getSize());
+        }
+
+        private synchronized void put(long id, long author, long timestamp, byte[] content) {
+            if (find(id) != -1) return;
+            int slot = next;
+            next = (next + 1) & (ids.length - 1);
+            if (ids[slot] != 0)
+                unindex(slot);
+            ids[slot] = id;
+            authors[slot] = author;
+            timestamps[slot] = timestamp;
+            positions[slot] = arena.append(content);
+            lengths[slot] = content.length;
+            newest = positions[slot];
+            int i = hash(id);
+            while (index[i] != 0)
+                i = (i + 1) & indexMask;
+            index[i] = slot + 1;
+        }
+
+        @Nullable
+        private synchronized RedisMessage replace(long channelId, long id, byte[] content) {
+            int slot = find(id);
+            if (slot == -1) return null;
+            RedisMessage old = read(channelId, slot);
+            positions[slot] = arena.append(content);
+            lengths[slot] = content.length;
+            newest = positions[slot];
+            return old;
+        }
+
+        @Nullable
+        private synchronized RedisMessage remove(long channelId, long id) {
+            int slot = find(id);
+            if (slot == -1) return null;
+            RedisMessage deleted = read(channelId, slot);
+            unindex(slot);
+            ids[slot] = 0;
+            return deleted;
+        }
+
+        private synchronized long getNewest() {
+            return newest;
+        }
+
+        private Ring release() {
+            ringBytes.addAndGet(-getSize());
+            return null;
+        }
+
+        @Nullable
+        private RedisMessage read(long channelId, int slot) {
+            byte[] content = arena.read(positions[slot], lengths[slot]);
+            // The content has been overwritten by newer messages.
+            if (content == null) return null;
+            return new RedisMessage(Long.toString(ids[slot]), Long.toString(authors[slot]),
+                    Long.toString(channelId), Long.toString(guildId), new String(content, StandardCharsets.UTF_8),
+                    timestamps[slot]);
+        }
+
+        private int find(long id) {
+            for (int i = hash(id); index[i] != 0; i = (i + 1) & indexMask) {
+                if (ids[index[i] - 1] == id)
+                    return index[i] - 1;
+            }
+            return -1;
+        }
+
+        /**
+         * Remove a slot from the index, the entries after it are shifted back so no probe chain is broken.
+         */
+        private void unindex(int slot) {
+            int i = hash(ids[slot]);
+            while (index[i] != slot + 1)
+                i = (i + 1) & indexMask;
+            for (int j = (i + 1) & indexMask; index[j] != 0; j = (j + 1) & indexMask) {
+                int home = hash(ids[index[j] - 1]);
+                // Entries whose home is between the gap and themselves have to stay where they are.
+                boolean between = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+                if (!between) {
+                    index[i] = index[j];
+                    i = j;
+                }
+            }
+            index[i] = 0;
+        }
+
+        private int hash(long id) {
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & indexMask;
+        }
+
+        private long getSize() {
+            return (long) ids.length * (8 * 4 + 4) + index.length * 4L;
+        }
+    }
+
+    /**
+     * A circular buffer of content which is only ever appended to. Positions are absolute so it can tell when the
+     * content at a position has been overwritten.
+     */
+    private static final class Arena {
+
+        private final byte[] data;
+        private long end;
+
+        private Arena(int size) {
+            this.data = new byte[size];
+        }
+
+        /**
+         * @return The position of the content or -1 if it is bigger than the arena.
+         */
+        private synchronized long append(byte[] content) {
+            if (content.length > data.length) return -1;
+            int offset = (int) (end % data.length);
+            // Content is never split across the end of the array, the rest is skipped.
+            if (offset + content.length > data.length) {
+                end += data.length - offset;
+                offset = 0;
+            }
+            System.arraycopy(content, 0, data, offset, content.length);
+            long position = end;
+            end += content.length;
+            return position;
+        }
+
+        @Nullable
+        private synchronized byte[] read(long position, int length) {
+            if (!isLive(position)) return null;
+            byte[] content = new byte[length];
+            System.arraycopy(data, (int) (position % data.length), content, 0, length);
+            return content;
+        }
+
+        private synchronized boolean isLive(long position) {
+            return position >= 0 && position >= end - data.length;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package stream.flarebot.flarebot.database;
+
+import net.dv8tion.jda.core.entities.Message;
+
+import javax.annotation.Nullable;
+
+/**
+ * Keeps recent messages so the modlog can show what a message said before it was edited or deleted.
+ * <p>
+ * {@link RedisMessageCache} is shared between processes, {@link LocalMessageCache} keeps everything in memory for
+ * single process setups, see {@link stream.flarebot.flarebot.Config#useLocalMessageCache()}.
+ */
+public interface MessageCache {
+
+    /**
+     * Cache a new message, does nothing if it is already cached.
+     *
+     * @param message The message which was sent.
+     */
+    void put(Message message);
+
+    /**
+     * Replace a cached message after it was edited, does nothing if it isn't cached.
+     *
+     * @param message The edited message.
+     * @return The message before the edit or null if it wasn't cached.
+     */
+    @Nullable
+    RedisMessage replace(Message message);
+
+    /**
+     * Remove a message after it was deleted.
+     *
+     * @param channelId The ID of the channel the message was in.
+     * @param messageId The ID of the message.
+     * @return The deleted message or null if it wasn't cached.
+     */
+    @Nullable
+    RedisMessage remove(long channelId, long messageId);
+}
@@ -1,23 +1,30 @@
 package stream.flarebot.flarebot.database;
 
 import io.github.binaryoverload.JSONConfig;
+import io.prometheus.client.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.JedisMonitor;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.util.SafeEncoder;
 import stream.flarebot.flarebot.Config;
 import stream.flarebot.flarebot.FlareBot;
+import stream.flarebot.flarebot.metrics.Metrics;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 public class RedisController {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisController.class);
+
     private static JedisPool jedisPool;
 
-    public static BlockingQueue<RedisSetData> setQueue = new LinkedBlockingQueue<>();
+    private static final RedisWriter writer = new RedisWriter(Config.INS.getRedisWriteWorkers(),
+            Config.INS.getRedisWriteQueueSize());
 
     public RedisController() {
         jedisPool = new JedisPool(
@@ -34,40 +41,50 @@ public class RedisController {
             FlareBot.LOGGER.error("Could not connect to redis!", e);
             return;
         }
-        new Thread(() -> {
-            try (Jedis jedis = RedisController.getJedisPool().getResource()) {
-                jedis.monitor(new JedisMonitor() {
-                    public void onCommand(String command) {
-                        String finalCommand = command;
-                        if (command.contains("AUTH")) finalCommand = "AUTH";
-                        FlareBot.LOGGER.debug("Executing redis command: {}", command.substring(finalCommand.lastIndexOf("]") + 1).trim());
-                    }
-                });
-            }
-        }, "Redis-Monitor").start();
-        Thread setThread = new Thread(() -> {
-            while (!FlareBot.EXITING.get()) {
-                try {
-                    RedisSetData data = RedisController.setQueue.poll(2, TimeUnit.SECONDS);
-                    if (data != null) {
-                        try (Jedis jedis = RedisController.getJedisPool().getResource()) {
-                            data.set(jedis);
-                            FlareBot.LOGGER.debug("Saving redis value with key: " + data.getKey());
-                        }
-                    }
-
-                } catch (Exception e) {
-                    FlareBot.LOGGER.error("Error in set thread!", e);
-                }
-            }
-        }, "Redis-SetThread");
-        setThread.start();
+        writer.start();
     }
 
     public static JedisPool getJedisPool() {
         return jedisPool;
     }
 
+    /**
+     * Run a command on a pooled connection, recording how long it took and whether it failed. A
+     * {@link Config#getRedisTraceSampleRate()} share of the commands are also logged, this replaces running MONITOR
+     * which makes Redis send every command from every client back to us.
+     *
+     * @param command The name of the command for the metrics, like {@code get}.
+     * @param key     The key the command is for, this is only logged in traces.
+     * @param payload The amount of bytes sent, 0 if this isn't a write.
+     * @param call    Runs the command.
+     * @return The result of the command.
+     */
+    static <T> T call(String command, @Nullable String key, long payload, Function<Jedis, T> call) {
+        Histogram.Timer timer = Metrics.redisCommands.labels(command).startTimer();
+        boolean failed = true;
+        try (Jedis jedis = jedisPool.getResource()) {
+            T result = call.apply(jedis);
+            failed = false;
+            return result;
+        } catch (RuntimeException e) {
+            Metrics.redisCommandErrors.labels(command).inc();
+            throw e;
+        } finally {
+            double seconds = timer.observeDuration();
+            if (payload > 0)
+                Metrics.redisPayloads.labels(command).observe(payload);
+            double sampleRate = Config.INS.getRedisTraceSampleRate();
+            if (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)
+                logger.info("Redis {} {} took {}ms, {} bytes{}", command, key, seconds * 1000, payload,
+                        failed ? " and failed" : "");
+        }
+    }
+
+    static long size(@Nullable String value) {
+        // UTF-8 length without encoding, messages are mostly ASCII so this is close enough for metrics.
+        return value == null ? 0 : value.length();
+    }
+
     /**
      * Expires a key after a certain amount of time
      *
@@ -77,9 +94,7 @@ public class RedisController {
      * {@code 1} if the expiry was successfully set.
      */
     public static Long expire(String key, int seconds) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.expire(key, seconds);
-        }
+        return call("expire", key, 0, jedis -> jedis.expire(key, seconds));
     }
 
     /**
@@ -91,9 +106,7 @@ public class RedisController {
      * {@code 1} if the expiry was successfully set.
      */
     public static Long pExpire(String key, long millis) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.pexpire(key, millis);
-        }
+        return call("pexpire", key, 0, jedis -> jedis.pexpire(key, millis));
     }
 
     /**
@@ -106,9 +119,7 @@ public class RedisController {
      * {@code 1} if the expiry was successfully set.
      */
     public static Long expireAt(String key, long unixTime) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.expireAt(key, unixTime);
-        }
+        return call("expireat", key, 0, jedis -> jedis.expireAt(key, unixTime));
     }
 
     /**
@@ -121,9 +132,7 @@ public class RedisController {
      * {@code 1} if the expiry was successfully set.
      */
     public static Long pExpireAt(String key, long unixTime) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.pexpireAt(key, unixTime);
-        }
+        return call("pexpireat", key, 0, jedis -> jedis.pexpireAt(key, unixTime));
     }
 
     /**
@@ -135,9 +144,7 @@ public class RedisController {
      * {@code -1} if the key exists but has no associated expire.
      */
     public static Long ttl(String key) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.ttl(key);
-        }
+        return call("ttl", key, 0, jedis -> jedis.ttl(key));
     }
 
     /**
@@ -149,9 +156,7 @@ public class RedisController {
      * {@code -1} if the key exists but has no associated expire.
      */
     public static Long pttl(String key) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.pttl(key);
-        }
+        return call("pttl", key, 0, jedis -> jedis.pttl(key));
     }
 
     /**
@@ -161,7 +166,7 @@ public class RedisController {
      * @param value The value to set at the key
      */
     public static void set(String key, String value) {
-        setQueue.add(new RedisSetData(key, value));
+        writer.add(new RedisSetData(key, value));
     }
 
     /**
@@ -174,7 +179,7 @@ public class RedisController {
      *              Otherwise use {@link RedisController#set(String, String)}
      */
     public static void set(String key, String value, String nxxx) {
-        setQueue.add(new RedisSetData(key, value, nxxx));
+        writer.add(new RedisSetData(key, value, nxxx));
     }
 
     /**
@@ -191,7 +196,24 @@ public class RedisController {
      * @param time  The expiry time to set
      */
     public static void set(String key, String value, String nxxx, String pxex, long time) {
-        setQueue.add(new RedisSetData(key, value, nxxx, pxex, time));
+        writer.add(new RedisSetData(key, value, nxxx, pxex, time));
+    }
+
+    /**
+     * Sets a binary value with a specific key in the database
+     *
+     * @param key   The key to set
+     * @param value The value to set at the key
+     * @param nxxx  {@code NX} to set the key only if doesn't exist <br>
+     *              {@code XX} to set the key only if it exists <br>
+     *              Otherwise use empty value
+     * @param pxex  {@code PX} to set the expiry in milliseconds <br>
+     *              {@code EX} to set the expiry in seconds <br>
+     *              Otherwise use empty value
+     * @param time  The expiry time to set
+     */
+    public static void set(String key, byte[] value, String nxxx, String pxex, long time) {
+        writer.add(new RedisSetData(key, value, nxxx, pxex, time));
     }
 
     /**
@@ -201,9 +223,21 @@ public class RedisController {
      * @return The value of the key or {@code null} if the key doesn't exist
      */
     public static String get(String key) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.get(key);
-        }
+        String value = call("get", key, 0, jedis -> jedis.get(key));
+        Metrics.redisPayloads.labels("get").observe(size(value));
+        return value;
+    }
+
+    /**
+     * Gets a binary value from the database
+     *
+     * @param key The key to get from redis
+     * @return The value of the key or {@code null} if the key doesn't exist
+     */
+    public static byte[] getBytes(String key) {
+        byte[] value = call("get", key, 0, jedis -> jedis.get(SafeEncoder.encode(key)));
+        Metrics.redisPayloads.labels("get").observe(value == null ? 0 : value.length);
+        return value;
     }
 
     /**
@@ -213,9 +247,7 @@ public class RedisController {
      * @return The amount of keys that were removed
      */
     public static Long del(String... keys) {
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.del(keys);
-        }
+        return call("del", String.join(" ", keys), 0, jedis -> jedis.del(keys));
     }
 
     /**
@@ -226,9 +258,7 @@ public class RedisController {
      */
     public static boolean exists(String key) {
         if (key == null) return false;
-        try (Jedis jedis = jedisPool.getResource()) {
-            return jedis.exists(key);
-        }
+        return call("exists", key, 0, jedis -> jedis.exists(key));
     }
 
 
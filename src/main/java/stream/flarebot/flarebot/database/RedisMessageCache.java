@@ -0,0 +1,85 @@
+package stream.flarebot.flarebot.database;
+
+import net.dv8tion.jda.core.entities.Message;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.SafeEncoder;
+import stream.flarebot.flarebot.util.general.GeneralUtils;
+
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Caches messages in Redis encoded with {@link RedisMessageCodec}, new messages are kept for a day.
+ * <p>
+ * Edits and deletes read and change the cached message with one script each so they only take one round trip,
+ * this also works on Redis versions without GETDEL.
+ */
+public class RedisMessageCache implements MessageCache {
+
+    private static final int NEW_MESSAGE_TTL = 86400;
+    private static final int EDITED_MESSAGE_TTL = 61200;
+
+    private static final Script REPLACE = new Script("local old = redis.call('GET', KEYS[1]) " +
+            "if old then redis.call('SET', KEYS[1], ARGV[1], 'EX', ARGV[2]) end return old");
+    private static final Script REMOVE = new Script("local old = redis.call('GET', KEYS[1]) " +
+            "if old then redis.call('DEL', KEYS[1]) end return old");
+
+    @Override
+    public void put(Message message) {
+        RedisController.set(message.getId(), GeneralUtils.getRedisMessageBytes(message), "nx", "ex", NEW_MESSAGE_TTL);
+    }
+
+    @Nullable
+    @Override
+    public RedisMessage replace(Message message) {
+        byte[] value = GeneralUtils.getRedisMessageBytes(message);
+        byte[] old = REPLACE.eval("message_replace", message.getId(), value, value,
+                SafeEncoder.encode(Integer.toString(EDITED_MESSAGE_TTL)));
+        return old == null ? null : RedisMessageCodec.decode(old);
+    }
+
+    @Nullable
+    @Override
+    public RedisMessage remove(long channelId, long messageId) {
+        byte[] deleted = REMOVE.eval("message_remove", Long.toString(messageId), null);
+        return deleted == null ? null : RedisMessageCodec.decode(deleted);
+    }
+
+    /**
+     * A Lua script which is sent by its SHA1 and only sent in full when Redis doesn't have it yet.
+     */
+    private static final class Script {
+
+        private final byte[] source;
+        private final byte[] sha;
+
+        private Script(String source) {
+            this.source = source.getBytes(StandardCharsets.UTF_8);
+            try {
+                StringBuilder sha = new StringBuilder();
+                for (byte b : MessageDigest.getInstance("SHA-1").digest(this.source))
+                    sha.append(String.format("%02x", b));
+                this.sha = SafeEncoder.encode(sha.toString());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-1 isn't available", e);
+            }
+        }
+
+        @Nullable
+        private byte[] eval(String command, String key, @Nullable byte[] payload, byte[]... args) {
+            byte[][] params = new byte[args.length + 1][];
+            params[0] = SafeEncoder.encode(key);
+            System.arraycopy(args, 0, params, 1, args.length);
+            return (byte[]) RedisController.call(command, key, payload == null ? 0 : payload.length, jedis -> {
+                try {
+                    return jedis.evalsha(sha, 1, params);
+                } catch (JedisNoScriptException e) {
+                    // Loads the script so the next call can use the SHA.
+                    return jedis.eval(source, 1, params);
+                }
+            });
+        }
+    }
+}
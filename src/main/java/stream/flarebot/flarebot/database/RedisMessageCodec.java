@@ -0,0 +1,129 @@
+package stream.flarebot.flarebot.database;
+
+import stream.flarebot.flarebot.util.general.GeneralUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compact binary format for the {@link RedisMessage}s cached in Redis.
+ * <p>
+ * The IDs are written as longs instead of decimal strings and the timestamp is a varint, there are no field names.
+ * Content over {@link #DEFLATE_THRESHOLD} bytes is deflated when that makes it smaller. Messages cached as JSON
+ * before this format existed are still read until they expire.
+ * <p>
+ * Layout: {@code 'F' 'M'}, codec version, flags, message ID, author ID, channel ID, guild ID, timestamp as a varint,
+ * then the content length as a varint (the inflated length if deflated) and the UTF-8 content.
+ */
+public class RedisMessageCodec {
+
+    public static final byte CODEC_VERSION = 1;
+
+    private static final byte MAGIC_0 = 'F';
+    private static final byte MAGIC_1 = 'M';
+
+    private static final byte FLAG_DEFLATED = 1;
+    private static final int DEFLATE_THRESHOLD = 256;
+
+    public static byte[] encode(RedisMessage message) {
+        byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+        byte[] deflated = content.length > DEFLATE_THRESHOLD ? deflate(content) : null;
+        boolean deflate = deflated != null && deflated.length < content.length;
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(40 + content.length);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(MAGIC_0);
+            out.writeByte(MAGIC_1);
+            out.writeByte(CODEC_VERSION);
+            out.writeByte(deflate ? FLAG_DEFLATED : 0);
+            out.writeLong(Long.parseLong(message.getMessageID()));
+            out.writeLong(Long.parseLong(message.getAuthorID()));
+            out.writeLong(Long.parseLong(message.getChannelID()));
+            out.writeLong(Long.parseLong(message.getGuildID()));
+            GuildCodec.writeVarLong(out, message.getTimestamp());
+            GuildCodec.writeVarInt(out, content.length);
+            out.write(deflate ? deflated : content);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // Only in memory streams are used so this can't really happen.
+            throw new IllegalStateException("Failed to encode message " + message.getMessageID(), e);
+        }
+    }
+
+    /**
+     * Decode a cached message in either this format or the old JSON one.
+     *
+     * @param data The value from Redis.
+     * @return The message.
+     * @throws IllegalArgumentException If the data isn't a valid message in either format.
+     */
+    public static RedisMessage decode(byte[] data) throws IllegalArgumentException {
+        if (!isEncoded(data))
+            return GeneralUtils.toRedisMessage(new String(data, StandardCharsets.UTF_8));
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, 2, data.length - 2));
+            byte codecVersion = in.readByte();
+            if (codecVersion != CODEC_VERSION)
+                throw new IllegalArgumentException("Unknown message codec version " + codecVersion);
+            byte flags = in.readByte();
+            String messageId = Long.toString(in.readLong());
+            String authorId = Long.toString(in.readLong());
+            String channelId = Long.toString(in.readLong());
+            String guildId = Long.toString(in.readLong());
+            long timestamp = GuildCodec.readVarLong(in);
+            byte[] content = new byte[GuildCodec.readVarInt(in)];
+            if ((flags & FLAG_DEFLATED) != 0) {
+                byte[] deflated = new byte[in.available()];
+                in.readFully(deflated);
+                inflate(deflated, content);
+            } else
+                in.readFully(content);
+            return new RedisMessage(messageId, authorId, channelId, guildId,
+                    new String(content, StandardCharsets.UTF_8), timestamp);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed encoded message", e);
+        }
+    }
+
+    public static boolean isEncoded(byte[] data) {
+        return data != null && data.length > 2 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+
+    private static byte[] deflate(byte[] content) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(content);
+            deflater.finish();
+            // Only worth it if it saves something, so there is no need to go beyond the original size.
+            byte[] buffer = new byte[content.length];
+            int length = deflater.deflate(buffer);
+            if (!deflater.finished()) return null;
+            byte[] deflated = new byte[length];
+            System.arraycopy(buffer, 0, deflated, 0, length);
+            return deflated;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void inflate(byte[] deflated, byte[] content) throws IOException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(deflated);
+            if (inflater.inflate(content) != content.length || !inflater.finished())
+                throw new IOException("Deflated content doesn't match its length");
+        } catch (DataFormatException e) {
+            throw new IOException("Malformed deflated content", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package stream.flarebot.flarebot.database;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
 
 public class RedisSetData {
 
     private String key;
-    private String value;
+    private byte[] value;
     private String nxxx;
     private String pxex;
     private Long time = 0L;
+    // An earlier write to the same key which has to be sent first since the two couldn't be combined.
+    private RedisSetData before;
 
     public RedisSetData(String key, String value) {
         this(key, value, "", "", 0L);
@@ -19,8 +25,12 @@ public class RedisSetData {
     }
 
     public RedisSetData(String key, String value, String nxxx, String pxex, Long time) {
+        this(key, (value == null ? "" : value).getBytes(StandardCharsets.UTF_8), nxxx, pxex, time);
+    }
+
+    public RedisSetData(String key, byte[] value, String nxxx, String pxex, Long time) {
         this.key = key;
-        this.value = (value == null ? "" : value);
+        this.value = (value == null ? new byte[0] : value);
         this.nxxx = (nxxx == null ? "" : nxxx);
         this.pxex = (pxex == null ? "" : pxex);
         this.time = (time == null ? 0L : time);
@@ -30,7 +40,7 @@ public class RedisSetData {
         return nxxx;
     }
 
-    public String getValue() {
+    public byte[] getValue() {
         return value;
     }
 
@@ -46,13 +56,61 @@ public class RedisSetData {
         return time;
     }
 
+    RedisSetData getBefore() {
+        return before;
+    }
+
     public void set(Jedis jedis) {
-        if ((getNxxx() != null && getPxex() != null) || (getNxxx() == null && getPxex() != null)) {
-            jedis.set(getKey(), getValue(), getNxxx(), getPxex(), getTime());
-        } else if (getNxxx() != null) {
-            jedis.set(getKey(), getValue(), getNxxx());
+        if (before != null)
+            before.set(jedis);
+        byte[] key = SafeEncoder.encode(getKey());
+        if (!getPxex().isEmpty()) {
+            jedis.set(key, getValue(), SafeEncoder.encode(getNxxx()), SafeEncoder.encode(getPxex()), getTime());
+        } else if (!getNxxx().isEmpty()) {
+            jedis.set(key, getValue(), SafeEncoder.encode(getNxxx()));
         } else {
-            jedis.set(getKey(), getValue());
+            jedis.set(key, getValue());
+        }
+    }
+
+    public void set(Pipeline pipeline) {
+        if (before != null)
+            before.set(pipeline);
+        byte[] key = SafeEncoder.encode(getKey());
+        if (!getPxex().isEmpty()) {
+            pipeline.set(key, getValue(), SafeEncoder.encode(getNxxx()), SafeEncoder.encode(getPxex()),
+                    (int) getTime());
+        } else if (!getNxxx().isEmpty()) {
+            pipeline.set(key, getValue(), SafeEncoder.encode(getNxxx()));
+        } else {
+            pipeline.set(key, getValue());
+        }
+    }
+
+    /**
+     * Combine this write with a later write to the same key so as few as possible have to be sent. The result
+     * leaves the key the same as sending both would.
+     *
+     * @param later The write which was made after this one.
+     * @return The combined write.
+     */
+    public RedisSetData merge(RedisSetData later) {
+        if ("nx".equalsIgnoreCase(later.nxxx)) {
+            if ("xx".equalsIgnoreCase(nxxx)) {
+                // Which of the two applies depends on whether the key exists, so both are sent.
+                RedisSetData both = new RedisSetData(later.key, later.value, later.nxxx, later.pxex, later.time);
+                both.before = this;
+                return both;
+            }
+            // The key always exists after an NX or unconditional write, the later write is then a no-op.
+            return this;
+        }
+        if ("xx".equalsIgnoreCase(later.nxxx) && !"xx".equalsIgnoreCase(nxxx)) {
+            // This write makes sure the key exists so the later write always applies and replaces anything before.
+            return new RedisSetData(later.key, later.value, "", later.pxex, later.time);
         }
+        // An unconditional later write always wins, an XX after an XX keeps the condition. Only NX writes have a
+        // write before them so nothing is lost here.
+        return later;
     }
 }
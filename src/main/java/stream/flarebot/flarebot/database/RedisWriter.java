@@ -0,0 +1,119 @@
+package stream.flarebot.flarebot.database;
+
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Pipeline;
+import stream.flarebot.flarebot.FlareBot;
+import stream.flarebot.flarebot.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends Redis writes in the background so the event threads never wait on Redis.
+ * <p>
+ * Writes are queued by key, a write to a key which is still queued is merged into the queued one with
+ * {@link RedisSetData#merge(RedisSetData)}. Workers take up to {@link #BATCH_SIZE} keys at a time and send them in
+ * one pipeline. The queue is bounded, once it is full new writes are dropped since blocking would stall the
+ * gateway and the messages are only a best effort cache.
+ */
+public class RedisWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisWriter.class);
+
+    private static final int BATCH_SIZE = 100;
+
+    private final BlockingQueue<String> queue;
+    private final Map<String, RedisSetData> pending = new ConcurrentHashMap<>();
+    private final int workers;
+
+    public RedisWriter(int workers, int capacity) {
+        this.workers = Math.max(workers, 1);
+        this.queue = new ArrayBlockingQueue<>(Math.max(capacity, BATCH_SIZE));
+        Metrics.redisWriteQueue.setChild(new Gauge.Child() {
+            @Override
+            public double get() {
+                return queue.size();
+            }
+        });
+    }
+
+    public void start() {
+        for (int i = 0; i < workers; i++)
+            new Thread(this::work, "Redis-SetThread-" + i).start();
+    }
+
+    /**
+     * Queue a write, this never blocks.
+     */
+    public void add(RedisSetData data) {
+        // The key is only queued when nothing is pending for it. Queueing inside compute means a worker can't
+        // take the key before the data is in the map.
+        pending.compute(data.getKey(), (key, queued) -> {
+            if (queued != null) {
+                Metrics.redisWrites.labels("coalesced").inc();
+                return queued.merge(data);
+            }
+            if (!queue.offer(key)) {
+                Metrics.redisWrites.labels("dropped").inc();
+                return null;
+            }
+            return data;
+        });
+    }
+
+    private void work() {
+        List<String> keys = new ArrayList<>(BATCH_SIZE);
+        List<RedisSetData> batch = new ArrayList<>(BATCH_SIZE);
+        while (!FlareBot.EXITING.get()) {
+            try {
+                String first = queue.poll(2, TimeUnit.SECONDS);
+                if (first == null) continue;
+                keys.add(first);
+                queue.drainTo(keys, BATCH_SIZE - 1);
+                for (String key : keys) {
+                    RedisSetData data = pending.remove(key);
+                    if (data != null)
+                        batch.add(data);
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                Metrics.redisWrites.labels("failed").inc(batch.size());
+                logger.error("Failed to write " + batch.size() + " values to Redis", e);
+            } finally {
+                keys.clear();
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<RedisSetData> batch) {
+        long payload = 0;
+        for (RedisSetData data : batch)
+            for (RedisSetData write = data; write != null; write = write.getBefore())
+                payload += RedisController.size(write.getKey()) + write.getValue().length;
+        Histogram.Timer timer = Metrics.redisFlushes.startTimer();
+        try {
+            RedisController.call("set_batch", null, payload, jedis -> {
+                Pipeline pipeline = jedis.pipelined();
+                for (RedisSetData data : batch)
+                    data.set(pipeline);
+                pipeline.sync();
+                return null;
+            });
+        } finally {
+            timer.observeDuration();
+        }
+        Metrics.redisWrites.labels("written").inc(batch.size());
+        logger.debug("Saved {} Redis values", batch.size());
+    }
+}
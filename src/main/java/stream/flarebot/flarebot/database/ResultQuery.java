@@ -0,0 +1,10 @@
+package stream.flarebot.flarebot.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+@FunctionalInterface
+public interface ResultQuery<T> {
+
+    T run(Connection connection) throws SQLException;
+}
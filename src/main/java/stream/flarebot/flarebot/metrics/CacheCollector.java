@@ -0,0 +1,68 @@
+package stream.flarebot.flarebot.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.prometheus.client.Collector;
+import io.prometheus.client.CounterMetricFamily;
+import io.prometheus.client.GaugeMetricFamily;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports the stats of a Caffeine cache, the cache has to be built with {@code recordStats()}. Everything is read
+ * from the cache on scrape.
+ */
+public class CacheCollector extends Collector {
+
+    private static final List<String> LABELS = Collections.singletonList("cache");
+
+    private final String name;
+    private final Cache<?, ?> cache;
+
+    public CacheCollector(String name, Cache<?, ?> cache) {
+        this.name = name;
+        this.cache = cache;
+    }
+
+    @Override
+    public List<MetricFamilySamples> collect() {
+        CacheStats stats = cache.stats();
+        List<String> labels = Collections.singletonList(name);
+        List<MetricFamilySamples> samples = new ArrayList<>();
+
+        CounterMetricFamily requests = new CounterMetricFamily("flarebot_cache_requests_total",
+                "Cache lookups by result", Arrays.asList("cache", "result"));
+        requests.addMetric(Arrays.asList(name, "hit"), stats.hitCount());
+        requests.addMetric(Arrays.asList(name, "miss"), stats.missCount());
+        samples.add(requests);
+
+        CounterMetricFamily loads = new CounterMetricFamily("flarebot_cache_loads_total",
+                "Cache loads by result", Arrays.asList("cache", "result"));
+        loads.addMetric(Arrays.asList(name, "success"), stats.loadSuccessCount());
+        loads.addMetric(Arrays.asList(name, "failure"), stats.loadFailureCount());
+        samples.add(loads);
+
+        samples.add(new CounterMetricFamily("flarebot_cache_load_seconds_total",
+                "Time spent loading entries into the cache", LABELS)
+                .addMetric(labels, stats.totalLoadTime() / (double) TimeUnit.SECONDS.toNanos(1)));
+        samples.add(new CounterMetricFamily("flarebot_cache_evictions_total",
+                "Entries evicted because of the size limit or expiry", LABELS)
+                .addMetric(labels, stats.evictionCount()));
+        samples.add(new GaugeMetricFamily("flarebot_cache_hit_ratio", "Ratio of lookups which were hits", LABELS)
+                .addMetric(labels, stats.hitRate()));
+        samples.add(new GaugeMetricFamily("flarebot_cache_size", "Estimated amount of entries in the cache", LABELS)
+                .addMetric(labels, cache.estimatedSize()));
+
+        cache.policy().eviction().ifPresent(policy -> policy.weightedSize().ifPresent(weight -> {
+            samples.add(new GaugeMetricFamily("flarebot_cache_weight", "Total weight of the cache entries", LABELS)
+                    .addMetric(labels, weight));
+            samples.add(new GaugeMetricFamily("flarebot_cache_max_weight", "Maximum weight of the cache", LABELS)
+                    .addMetric(labels, policy.getMaximum()));
+        }));
+        return samples;
+    }
+}
@@ -0,0 +1,171 @@
+package stream.flarebot.flarebot.metrics;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Gauge;
+import io.prometheus.client.Histogram;
+import io.prometheus.client.exporter.HTTPServer;
+import io.prometheus.client.hotspot.DefaultExports;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.Config;
+
+import java.io.IOException;
+
+public class Metrics {
+
+    private static final Logger logger = LoggerFactory.getLogger(Metrics.class);
+
+    private static HTTPServer server;
+
+    // Guild persistence
+    public static final Counter guildSaves = Counter.build()
+            .name("flarebot_guild_saves_total")
+            .help("Guild saves by result, patched means only the changed fields were written and skipped means the " +
+                    "guild was unchanged and was not written")
+            .labelNames("result")
+            .register();
+    public static final Gauge dirtyGuilds = Gauge.build()
+            .name("flarebot_guilds_dirty")
+            .help("Guilds waiting to be written to the database")
+            .register();
+    public static final Counter guildEvictions = Counter.build()
+            .name("flarebot_guild_cache_removals_total")
+            .help("Guilds removed from the cache by cause")
+            .labelNames("cause")
+            .register();
+    public static final Counter redisGuildCache = Counter.build()
+            .name("flarebot_guild_redis_cache_total")
+            .help("Guild lookups in Redis by result, invalidated counts guilds evicted because another process " +
+                    "changed them")
+            .labelNames("result")
+            .register();
+
+    // Future actions
+    public static final Gauge futureActionsOverdue = Gauge.build()
+            .name("flarebot_future_actions_overdue")
+            .help("Overdue future actions waiting to be caught up on")
+            .register();
+    public static final Counter futureActionsCaughtUp = Counter.build()
+            .name("flarebot_future_actions_caught_up_total")
+            .help("Overdue future actions which were caught up on by result, skipped means the guild wasn't available")
+            .labelNames("result")
+            .register();
+
+    // Redis
+    public static final Histogram redisCommands = Histogram.build()
+            .name("flarebot_redis_command_seconds")
+            .help("How long Redis commands take including getting a connection, batches count as one command")
+            .labelNames("command")
+            .buckets(0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5)
+            .register();
+    public static final Counter redisCommandErrors = Counter.build()
+            .name("flarebot_redis_command_errors_total")
+            .help("Redis commands which threw an exception")
+            .labelNames("command")
+            .register();
+    public static final Histogram redisPayloads = Histogram.build()
+            .name("flarebot_redis_payload_bytes")
+            .help("Bytes sent by Redis writes and received by Redis reads")
+            .labelNames("command")
+            .exponentialBuckets(64, 4, 8)
+            .register();
+    public static final Gauge redisWriteQueue = Gauge.build()
+            .name("flarebot_redis_write_queue")
+            .help("Redis writes waiting to be sent")
+            .register();
+    public static final Counter redisWrites = Counter.build()
+            .name("flarebot_redis_writes_total")
+            .help("Redis writes by result, coalesced means the write was merged into a queued write to the same key " +
+                    "and dropped means the queue was full")
+            .labelNames("result")
+            .register();
+    public static final Histogram redisFlushes = Histogram.build()
+            .name("flarebot_redis_flush_seconds")
+            .help("How long it takes to send a batch of Redis writes")
+            .buckets(0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5)
+            .register();
+
+    // Local message cache
+    public static final Gauge messageCacheBytes = Gauge.build()
+            .name("flarebot_message_cache_bytes")
+            .help("Memory used by the local message cache")
+            .register();
+    public static final Counter messageCacheRequests = Counter.build()
+            .name("flarebot_message_cache_requests_total")
+            .help("Local message cache lookups for edits and deletes by result")
+            .labelNames("result")
+            .register();
+
+    // Commands
+    public static final Gauge commandsQueued = Gauge.build()
+            .name("flarebot_commands_queued")
+            .help("Commands waiting to run")
+            .register();
+    public static final Counter commandsRejected = Counter.build()
+            .name("flarebot_commands_rejected_total")
+            .help("Commands which weren't run because their guild already had too many commands waiting")
+            .labelNames("command")
+            .register();
+    public static final Histogram commandQueueWait = Histogram.build()
+            .name("flarebot_command_queue_seconds")
+            .help("How long commands waited to start running")
+            .labelNames("command")
+            .buckets(0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 30)
+            .register();
+    public static final Histogram commandDuration = Histogram.build()
+            .name("flarebot_command_seconds")
+            .help("How long commands take to run")
+            .labelNames("command")
+            .buckets(0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 30, 120)
+            .register();
+
+    // Scheduler
+    public static final Histogram schedulerLag = Histogram.build()
+            .name("flarebot_scheduler_lag_seconds")
+            .help("How long after their intended start scheduled tasks started, this grows when the pool is busy")
+            .labelNames("task")
+            .buckets(0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 30)
+            .register();
+    public static final Histogram schedulerTaskDuration = Histogram.build()
+            .name("flarebot_scheduler_task_seconds")
+            .help("How long scheduled tasks take to run")
+            .labelNames("task")
+            .register();
+
+    // Database
+    public static final Histogram databaseQueries = Histogram.build()
+            .name("flarebot_db_query_seconds")
+            .help("How long database queries take, not including waiting for a connection")
+            .labelNames("query")
+            .register();
+    public static final Counter databaseErrors = Counter.build()
+            .name("flarebot_db_query_errors_total")
+            .help("Database queries which threw an exception")
+            .labelNames("query")
+            .register();
+    public static final Histogram databasePoolWait = Histogram.build()
+            .name("flarebot_db_pool_wait_seconds")
+            .help("How long it takes to get a connection from the pool")
+            .buckets(0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 30)
+            .register();
+
+    /**
+     * Registers the JVM collectors and, if a metrics port is set in the config, starts the HTTP server Prometheus
+     * scrapes from.
+     */
+    public static void init() {
+        DefaultExports.initialize();
+        if (Config.INS.getMetricsPort() <= 0) return;
+        try {
+            server = new HTTPServer(Config.INS.getMetricsPort(), true);
+            logger.info("Started metrics server on port {}", Config.INS.getMetricsPort());
+        } catch (IOException e) {
+            logger.error("Failed to start the metrics server!", e);
+        }
+    }
+
+    public static void stop() {
+        if (server != null)
+            server.stop();
+    }
+}
@@ -2,19 +2,27 @@ package stream.flarebot.flarebot.mod;
 
 import com.google.common.collect.Sets;
 import net.dv8tion.jda.core.entities.Member;
+import stream.flarebot.flarebot.DataHandler;
 import stream.flarebot.flarebot.mod.modlog.ModlogAction;
 import stream.flarebot.flarebot.mod.modlog.ModlogEvent;
+import stream.flarebot.flarebot.objects.DirtyTracked;
 import stream.flarebot.flarebot.objects.GuildWrapper;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import java.util.Collections;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class Moderation {
+public class Moderation extends DirtyTracked {
 
     // Having this as something like a Map<Long, Set<ModlogAction>> and having that as the channel ID would make a
     // little more sense memory wise but efficiency wise it is much better to get the channel from the action itself.
     private Set<ModlogAction> enabledActions;
+    // Whether messages have to be cached for the edit and delete events, worked out on first use and reset whenever
+    // the actions change. 0 is unknown, 1 is no and 2 is yes, an int since Gson doesn't run field initializers.
+    private transient volatile int capturesMessages = 0;
+    private transient long guildId;
 
     /**
      * Check if the passed channel ID is a "valid", this means that the channel ID belongs to that guild and that it
@@ -35,18 +43,23 @@ public class Moderation {
      * @return The map of channelId(s) and actions to log to them channels.
      */
     public Set<ModlogAction> getEnabledActions() {
+        return TrackedCollections.set(actions(), this::actionsChanged);
+    }
+
+    private Set<ModlogAction> actions() {
         if (enabledActions == null)
-            enabledActions = Sets.newConcurrentHashSet();;
+            enabledActions = Sets.newConcurrentHashSet();
         return enabledActions;
     }
 
     public boolean isEventEnabled(GuildWrapper wrapper, ModlogEvent event) {
-        for (ModlogAction action : getEnabledActions()) {
+        for (ModlogAction action : actions()) {
             if (action.getEvent() == event) {
                 if (isValidChannelId(wrapper, action.getModlogChannelId()))
                     return true;
                 else {
-                    getEnabledActions().remove(action);
+                    if (actions().remove(action))
+                        actionsChanged();
                     return false;
                 }
             }
@@ -87,6 +100,51 @@ public class Moderation {
 
     public void disableAllEvents() {
         this.enabledActions = Sets.newConcurrentHashSet();
+        actionsChanged();
+    }
+
+    /**
+     * Check if messages in this guild have to be cached so they can be logged when they are edited or deleted.
+     * This is checked for every message so it only looks through the actions after they have changed.
+     *
+     * @return If {@link ModlogEvent#MESSAGE_EDIT} or {@link ModlogEvent#MESSAGE_DELETE} is enabled.
+     */
+    public boolean capturesMessages() {
+        int captures = capturesMessages;
+        if (captures == 0) {
+            synchronized (this) {
+                captures = 1;
+                for (ModlogAction action : actions()) {
+                    if (action.getEvent() == ModlogEvent.MESSAGE_EDIT
+                            || action.getEvent() == ModlogEvent.MESSAGE_DELETE) {
+                        captures = 2;
+                        break;
+                    }
+                }
+                capturesMessages = captures;
+            }
+        }
+        return captures == 2;
+    }
+
+    private void actionsChanged() {
+        // Changes are made before this is called, taking the lock means a lookup which saw the old actions has
+        // finished and is reset here.
+        synchronized (this) {
+            capturesMessages = 0;
+        }
+        // Added back to the prefix index with the new value by the next message which needs the guild.
+        if (guildId != 0)
+            DataHandler.getPrefixIndex().remove(guildId);
+        markDirty();
+    }
+
+    public long getGuildId() {
+        return guildId;
+    }
+
+    public void setGuildId(long guildId) {
+        this.guildId = guildId;
     }
 
     public void disableDefaultEvents() {
@@ -97,7 +155,7 @@ public class Moderation {
     }
 
     public boolean isEventCompacted(ModlogEvent modlogEvent) {
-        for (ModlogAction action : getEnabledActions()) {
+        for (ModlogAction action : actions()) {
             if (action.getEvent() == modlogEvent)
                 return action.isCompacted();
         }
@@ -105,9 +163,12 @@ public class Moderation {
     }
 
     public boolean setEventCompact(ModlogEvent modlogEvent, boolean b) {
-        for (ModlogAction action : getEnabledActions())
-            if (action.getEvent() == modlogEvent)
+        for (ModlogAction action : actions()) {
+            if (action.getEvent() == modlogEvent && action.isCompacted() != b) {
                 action.setCompacted(b);
+                markDirty();
+            }
+        }
         return b;
     }
 
@@ -122,4 +183,10 @@ public class Moderation {
         if (guild.getMutedRole() != null && member.getRoles().contains(guild.getMutedRole()))
             guild.getGuild().getController().removeSingleRoleFromMember(member, guild.getMutedRole()).queue();
     }
+
+    public int getEstimatedSize() {
+        // Each action is a small object holding the event and channel.
+        return SizeUtils.OBJECT_SIZE + (enabledActions == null ? 0 : enabledActions.size()
+                * (SizeUtils.ENTRY_SIZE + SizeUtils.OBJECT_SIZE));
+    }
 }
@@ -27,7 +27,10 @@ public class NINOListener implements EventListener {
         if (event.getAuthor().isBot()) return;
         if (event.getMember().hasPermission(event.getChannel(), Permission.MESSAGE_MANAGE)) return;
 
-        GuildWrapper wrapper = DataHandler.getGuild(event.getGuild().getIdLong());
+        DataHandler.withGuild(event.getGuild().getIdLong(), wrapper -> onGuildMessageReceived(event, wrapper));
+    }
+
+    private void onGuildMessageReceived(GuildMessageReceivedEvent event, GuildWrapper wrapper) {
         if (wrapper.getNINO().isEnabled()) {
 
             // Apply the channel whitelist.
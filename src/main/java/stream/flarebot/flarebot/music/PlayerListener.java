@@ -32,8 +32,11 @@ public class PlayerListener extends AudioEventAdapterWrapped {
 
     @Override
     public void onEvent(PlayerEvent event) {
-        GuildWrapper wrapper = DataHandler.getGuild(Long.parseLong(guildId));
         super.onEvent(event);
+        DataHandler.withGuild(Long.parseLong(guildId), wrapper -> onEvent(event, wrapper));
+    }
+
+    private void onEvent(PlayerEvent event, GuildWrapper wrapper) {
         if(event instanceof TrackEndEvent) {
             TrackEndEvent endEvent = (TrackEndEvent) event;
             if(endEvent.getReason().equals(AudioTrackEndReason.FINISHED)) {
@@ -0,0 +1,36 @@
+package stream.flarebot.flarebot.objects;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * Base for anything that is persisted as part of a {@link GuildWrapper}. Mutators call {@link #markDirty()} so the
+ * guild is only written back to the database when something actually changed since it was last saved.
+ * <p>
+ * The flag is transient so it is never serialized with the rest of the object.
+ */
+public abstract class DirtyTracked {
+
+    // Not an AtomicBoolean as Gson doesn't run field initializers for classes without a no-args constructor.
+    private static final AtomicIntegerFieldUpdater<DirtyTracked> DIRTY =
+            AtomicIntegerFieldUpdater.newUpdater(DirtyTracked.class, "dirty");
+
+    private transient volatile int dirty = 0;
+
+    public void markDirty() {
+        this.dirty = 1;
+    }
+
+    public boolean isDirty() {
+        return dirty == 1;
+    }
+
+    /**
+     * Clear the dirty flag, this should be called <b>before</b> the object is serialized so any change made while
+     * it is being written marks it dirty again.
+     *
+     * @return If it was dirty.
+     */
+    public boolean clearDirty() {
+        return DIRTY.getAndSet(this, 0) == 1;
+    }
+}
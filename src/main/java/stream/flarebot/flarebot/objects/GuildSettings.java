@@ -1,6 +1,8 @@
 package stream.flarebot.flarebot.objects;
 
 import org.eclipse.jetty.util.ConcurrentHashSet;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import java.util.Arrays;
 import java.util.Set;
@@ -8,7 +10,7 @@ import java.util.Set;
 /**
  * I'm not sure the best way to handle settings as of yet, so for now edit the SettingsCommand when changed.
  */
-public class GuildSettings {
+public class GuildSettings extends DirtyTracked {
 
     private boolean deleteCommands;
     private Set<Long> channelBlacklist;
@@ -25,31 +27,38 @@ public class GuildSettings {
     }
 
     public void setDeleteCommands(boolean deleteCommands) {
-        this.deleteCommands = deleteCommands;
+        if (this.deleteCommands != deleteCommands) {
+            this.deleteCommands = deleteCommands;
+            markDirty();
+        }
     }
 
     public Set<Long> getChannelBlacklist() {
-        return channelBlacklist;
+        return TrackedCollections.set(channelBlacklist, this::markDirty);
     }
 
     public void addChannelToBlacklist(long channelId) {
-        this.channelBlacklist.add(channelId);
+        if (this.channelBlacklist.add(channelId))
+            markDirty();
     }
 
     public void removeChannelFromBlacklist(long channelId) {
-        this.channelBlacklist.remove(channelId);
+        if (this.channelBlacklist.remove(channelId))
+            markDirty();
     }
 
     public Set<Long> getUserBlacklist() {
-        return userBlacklist;
+        return TrackedCollections.set(userBlacklist, this::markDirty);
     }
 
     public void addUserToBlacklist(long userId) {
-        this.userBlacklist.add(userId);
+        if (this.userBlacklist.add(userId))
+            markDirty();
     }
 
     public void removeUserFromBlacklist(long userId) {
-        this.userBlacklist.remove(userId);
+        if (this.userBlacklist.remove(userId))
+            markDirty();
     }
 
     @Override
@@ -60,4 +69,8 @@ public class GuildSettings {
                 Arrays.toString(userBlacklist.toArray())
         );
     }
+
+    public int getEstimatedSize() {
+        return SizeUtils.OBJECT_SIZE + SizeUtils.estimate(channelBlacklist) + SizeUtils.estimate(userBlacklist);
+    }
 }
@@ -5,25 +5,28 @@ import net.dv8tion.jda.core.entities.Guild;
 import net.dv8tion.jda.core.entities.Role;
 import net.dv8tion.jda.core.entities.User;
 import stream.flarebot.flarebot.Config;
+import stream.flarebot.flarebot.DataHandler;
 import stream.flarebot.flarebot.FlareBot;
 import stream.flarebot.flarebot.Getters;
 import stream.flarebot.flarebot.mod.Moderation;
 import stream.flarebot.flarebot.permissions.PerGuildPermissions;
 import stream.flarebot.flarebot.util.ReportManager;
+import stream.flarebot.flarebot.util.TagManager;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.WarningManager;
 import stream.flarebot.flarebot.util.general.GuildUtils;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import javax.annotation.Nullable;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 
-public class GuildWrapper {
+public class GuildWrapper extends DirtyTracked {
 
-    public static transient final long DATA_VERSION = 1;
+    public static transient final long DATA_VERSION = 2;
     public final long dataVersion = DATA_VERSION;
 
     private Long guildId;
@@ -39,9 +42,11 @@ public class GuildWrapper {
     private String blockReason = null;
     // TODO: Move to Moderation fully - This will be a breaking change so we will basically just refer to the new location
     private String mutedRoleID = null;
-    private ReportManager reportManager = new ReportManager();
-    private Map<String, List<String>> warnings = new ConcurrentHashMap<>();
-    private Map<String, String> tags = new ConcurrentHashMap<>();
+    // Tags, warnings and reports were stored with the guild before they got their own tables. These are only set
+    // for guilds which haven't been moved over yet, see GuildLoader.
+    private LegacyReports reportManager;
+    private Map<String, List<String>> warnings;
+    private Map<String, String> tags;
     private String musicAnnounceChannelId = null;
     private Moderation moderation;
     private NINO nino = null;
@@ -50,6 +55,9 @@ public class GuildWrapper {
     // oooo special!
     private boolean betaAccess = false;
 
+    // Top level fields changed since the last save, null when there are none.
+    private transient volatile Set<String> dirtyFields;
+
     /**
      * <b>Do not use</b>
      *
@@ -89,14 +97,15 @@ public class GuildWrapper {
 
     public void setPermissions(PerGuildPermissions permissions) {
         this.permissions = permissions;
+        markDirty("permissions");
     }
 
     public Set<String> getAutoAssignRoles() {
-        return this.autoAssignRoles;
+        return TrackedCollections.set(this.autoAssignRoles, () -> markDirty("autoAssignRoles"));
     }
 
     public Set<String> getSelfAssignRoles() {
-        return this.selfAssignRoles;
+        return TrackedCollections.set(this.selfAssignRoles, () -> markDirty("selfAssignRoles"));
     }
 
     public boolean isBlocked() {
@@ -107,18 +116,27 @@ public class GuildWrapper {
         blocked = true;
         blockReason = reason;
         unBlockTime = -1; //-1 represents both infinite and unblocked
+        markBlockDirty();
     }
 
     public void addBlocked(String reason, long unBlockTime) {
         blocked = true;
         blockReason = reason;
         this.unBlockTime = unBlockTime;
+        markBlockDirty();
     }
 
     public void revokeBlock() {
         blocked = false;
         blockReason = "";
         unBlockTime = -1; //-1 represents both infinite and unblocked
+        markBlockDirty();
+    }
+
+    private void markBlockDirty() {
+        markDirty("blocked");
+        markDirty("blockReason");
+        markDirty("unBlockTime");
     }
 
     public String getBlockReason() {
@@ -135,6 +153,7 @@ public class GuildWrapper {
 
     public void setSongnick(boolean songnick) {
         this.songnick = songnick;
+        markDirty("songnick");
     }
 
     @Nullable
@@ -151,6 +170,7 @@ public class GuildWrapper {
                         getGuild().getController().modifyRolePositions().selectPosition(mutedRole)
                                 .moveTo(getGuild().getSelfMember().getRoles().get(0).getPosition() - 1).queue();
                     mutedRoleID = mutedRole.getId();
+                    markDirty("mutedRoleID");
                     handleMuteChannels(mutedRole);
                     return mutedRole;
                 } catch (InterruptedException | ExecutionException e) {
@@ -159,6 +179,7 @@ public class GuildWrapper {
                 }
             } else {
                 mutedRoleID = mutedRole.getId();
+                markDirty("mutedRoleID");
                 handleMuteChannels(mutedRole);
                 return mutedRole;
             }
@@ -166,6 +187,7 @@ public class GuildWrapper {
             Role mutedRole = getGuild().getRoleById(mutedRoleID);
             if (mutedRole == null) {
                 mutedRoleID = null;
+                markDirty("mutedRoleID");
                 return getMutedRole();
             } else {
                 handleMuteChannels(mutedRole);
@@ -191,23 +213,15 @@ public class GuildWrapper {
     }
 
     public ReportManager getReportManager() {
-        if (reportManager == null) reportManager = new ReportManager();
-        return reportManager;
+        return new ReportManager(guildId);
     }
 
-    public List<String> getUserWarnings(User user) {
-        if (warnings == null) warnings = new ConcurrentHashMap<>();
-        return warnings.getOrDefault(user.getId(), new ArrayList<>());
+    public WarningManager getWarnings() {
+        return new WarningManager(guildId);
     }
 
     public void addWarning(User user, String reason) {
-        List<String> warningsList = getUserWarnings(user);
-        warningsList.add(reason);
-        warnings.put(user.getId(), warningsList);
-    }
-
-    public Map<String, List<String>> getWarningsMap() {
-        return warnings;
+        getWarnings().addWarning(user.getIdLong(), reason);
     }
 
     public boolean hasBetaAccess() {
@@ -216,19 +230,21 @@ public class GuildWrapper {
 
     public void setBetaAccess(boolean betaAccess) {
         this.betaAccess = betaAccess;
+        markDirty("betaAccess");
     }
 
     public boolean getBetaAccess() {
         return betaAccess;
     }
 
-    public Map<String, String> getTags() {
-        if (tags == null) tags = new ConcurrentHashMap<>();
-        return tags;
+    public TagManager getTags() {
+        return new TagManager(guildId);
     }
 
     public Moderation getModeration() {
         if (this.moderation == null) this.moderation = new Moderation();
+        // Not serialized so it is set again after the guild is loaded.
+        if (this.moderation.getGuildId() == 0) this.moderation.setGuildId(guildId);
         return this.moderation;
     }
 
@@ -242,6 +258,8 @@ public class GuildWrapper {
 
     public void setPrefix(char prefix) {
         this.prefix = prefix;
+        markDirty("prefix");
+        DataHandler.getPrefixIndex().remove(guildId);
     }
 
     public String getMusicAnnounceChannelId() {
@@ -250,6 +268,7 @@ public class GuildWrapper {
 
     public void setMusicAnnounceChannelId(String musicAnnounceChannelId) {
         this.musicAnnounceChannelId = musicAnnounceChannelId;
+        markDirty("musicAnnounceChannelId");
     }
 
     public NINO getNINO() {
@@ -263,4 +282,125 @@ public class GuildWrapper {
             settings = new GuildSettings();
         return settings;
     }
+
+    public boolean hasLegacyRecords() {
+        return tags != null || warnings != null || reportManager != null;
+    }
+
+    @Nullable
+    public Map<String, String> getLegacyTags() {
+        return tags;
+    }
+
+    @Nullable
+    public Map<String, List<String>> getLegacyWarnings() {
+        return warnings;
+    }
+
+    @Nullable
+    public List<Report> getLegacyReports() {
+        return reportManager == null ? null : reportManager.reports;
+    }
+
+    /**
+     * Drop the tags, warnings and reports stored with the guild once they have been copied to their own tables.
+     */
+    public void clearLegacyRecords() {
+        tags = null;
+        warnings = null;
+        reportManager = null;
+        markDirty("tags");
+        markDirty("warnings");
+        markDirty("reportManager");
+    }
+
+    /**
+     * Mark a single field as changed so only that field needs to be written, see {@link #takeChanges()}. Use
+     * {@link #markDirty()} when the whole guild should be rewritten.
+     *
+     * @param field The name of the field as it is serialized.
+     */
+    public synchronized void markDirty(String field) {
+        if (dirtyFields == null)
+            dirtyFields = new HashSet<>();
+        dirtyFields.add(field);
+    }
+
+    /**
+     * Whether this guild or any of the objects stored with it have changed since it was last saved.
+     *
+     * @return If the guild needs to be written back to the database.
+     */
+    @Override
+    public boolean isDirty() {
+        return super.isDirty()
+                || dirtyFields != null
+                || (welcome != null && welcome.isDirty())
+                || (permissions != null && permissions.isDirty())
+                || (moderation != null && moderation.isDirty())
+                || (nino != null && nino.isDirty())
+                || (settings != null && settings.isDirty());
+    }
+
+    @Override
+    public boolean clearDirty() {
+        Set<String> changes = takeChanges();
+        return changes == null || !changes.isEmpty();
+    }
+
+    /**
+     * Clear the dirty state, like {@link #clearDirty()}, and get the top level fields which changed since the guild
+     * was last saved. This should be called <b>before</b> the guild is serialized.
+     *
+     * @return The names of the changed fields as they are serialized, or null if the whole guild should be written.
+     */
+    public Set<String> takeChanges() {
+        Set<String> changes;
+        synchronized (this) {
+            changes = dirtyFields == null ? new HashSet<>() : dirtyFields;
+            dirtyFields = null;
+        }
+        // Everything is cleared so nothing is left dirty if the whole guild gets written.
+        boolean whole = super.clearDirty();
+        if (welcome != null && welcome.clearDirty()) changes.add("welcome");
+        if (permissions != null && permissions.clearDirty()) changes.add("permissions");
+        if (moderation != null && moderation.clearDirty()) changes.add("moderation");
+        if (nino != null && nino.clearDirty()) changes.add("nino");
+        if (settings != null && settings.clearDirty()) changes.add("settings");
+        return whole ? null : changes;
+    }
+
+    /**
+     * Estimate how much memory this guild takes up, this is used to weigh guilds in the {@link DataHandler} cache.
+     * The weight is only worked out when a guild is added so guilds which grow while cached are under counted.
+     *
+     * @return The estimated size in bytes.
+     */
+    public int getEstimatedSize() {
+        int size = SizeUtils.OBJECT_SIZE * 2
+                + SizeUtils.estimate(autoAssignRoles)
+                + SizeUtils.estimate(selfAssignRoles)
+                + SizeUtils.estimate(blockReason)
+                + SizeUtils.estimate(mutedRoleID)
+                + SizeUtils.estimate(musicAnnounceChannelId);
+        if (welcome != null) size += welcome.getEstimatedSize();
+        if (permissions != null) size += permissions.getEstimatedSize();
+        if (moderation != null) size += moderation.getEstimatedSize();
+        if (nino != null) size += nino.getEstimatedSize();
+        if (settings != null) size += settings.getEstimatedSize();
+        // Only until they are moved to their own tables but they can be huge.
+        if (tags != null)
+            for (Map.Entry<String, String> tag : tags.entrySet())
+                size += SizeUtils.ENTRY_SIZE + SizeUtils.estimate(tag.getKey()) + SizeUtils.estimate(tag.getValue());
+        if (warnings != null)
+            for (List<String> userWarnings : warnings.values())
+                size += SizeUtils.ENTRY_SIZE * 2 + SizeUtils.estimate(userWarnings);
+        if (reportManager != null && reportManager.reports != null)
+            size += reportManager.reports.size() * SizeUtils.OBJECT_SIZE * 8;
+        return size;
+    }
+
+    private static class LegacyReports {
+        private List<Report> reports;
+    }
 }
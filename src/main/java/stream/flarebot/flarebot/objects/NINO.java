@@ -4,6 +4,8 @@ import org.eclipse.jetty.util.ConcurrentHashSet;
 import stream.flarebot.flarebot.mod.nino.NINOMode;
 import stream.flarebot.flarebot.mod.nino.URLCheckFlag;
 import stream.flarebot.flarebot.util.RandomUtils;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import java.util.Arrays;
 import java.util.Collection;
@@ -15,7 +17,7 @@ import java.util.stream.Collectors;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
-public class NINO {
+public class NINO extends DirtyTracked {
 
     // 0 - Relaxed (Check for protocol and don't follow URLs)
     // 1 - Passive (Check for protocol and follow URLs)
@@ -41,21 +43,23 @@ public class NINO {
     }
 
     public void addUrl(String str) {
-        this.whitelistedUrls.add(str);
+        if (this.whitelistedUrls.add(str))
+            markDirty();
     }
 
     public void removeUrl(String url) {
-        if (this.whitelistedUrls.contains(url))
-            this.whitelistedUrls.remove(url);
+        if (this.whitelistedUrls.remove(url))
+            markDirty();
     }
 
     public void addChannel(long channelId) {
-        this.whitelistedChannels.add(channelId);
+        if (this.whitelistedChannels.add(channelId))
+            markDirty();
     }
 
     public void removeChannel(long channelId) {
-        if (this.whitelistedChannels.contains(channelId))
-            this.whitelistedChannels.remove(channelId);
+        if (this.whitelistedChannels.remove(channelId))
+            markDirty();
     }
 
     public void setRemoveMessage(String str) {
@@ -63,14 +67,17 @@ public class NINO {
             this.removeMessages.set(0, str);
         else
             this.removeMessages.add(str);
+        markDirty();
     }
 
     public void addRemoveMessage(String str) {
         this.removeMessages.add(str);
+        markDirty();
     }
 
     public void clearRemoveMessages() {
         this.removeMessages.clear();
+        markDirty();
     }
 
     @Nullable
@@ -81,19 +88,19 @@ public class NINO {
     }
 
     public Set<String> getWhitelist() {
-        return whitelistedUrls;
+        return TrackedCollections.set(whitelistedUrls, this::markDirty);
     }
 
     public Set<Long> getWhitelistedChannels() {
-        return whitelistedChannels;
+        return TrackedCollections.set(whitelistedChannels, this::markDirty);
     }
 
     public List<String> getRemoveMessages() {
-        return removeMessages;
+        return TrackedCollections.list(removeMessages, this::markDirty);
     }
 
     public Set<URLCheckFlag> getURLFlags() {
-        return urlFlags;
+        return TrackedCollections.set(urlFlags, this::markDirty);
     }
 
     public void addURLFlags(URLCheckFlag flag, URLCheckFlag... flags) {
@@ -103,7 +110,7 @@ public class NINO {
     }
 
     public Set<Long> getChannels() {
-        return whitelistedChannels;
+        return getWhitelistedChannels();
     }
 
     public byte getMode() {
@@ -121,11 +128,20 @@ public class NINO {
     }
 
     public void setMode(byte b) {
-        this.mode = b;
+        if (this.mode != b) {
+            this.mode = b;
+            markDirty();
+        }
     }
 
     public void setFlags(Collection<URLCheckFlag> flags) {
         this.urlFlags.clear();
         this.urlFlags.addAll(flags);
+        markDirty();
+    }
+
+    public int getEstimatedSize() {
+        return SizeUtils.OBJECT_SIZE + SizeUtils.estimate(whitelistedUrls) + SizeUtils.estimate(whitelistedChannels)
+                + SizeUtils.estimate(removeMessages) + SizeUtils.estimate(urlFlags);
     }
 }
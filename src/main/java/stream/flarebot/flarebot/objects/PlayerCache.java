@@ -1,46 +1,50 @@
 package stream.flarebot.flarebot.objects;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 
 public class PlayerCache {
 
-    private String userId;
-    private LocalDateTime lastMessage;
-    private String lastSpokeGuild;
-    private LocalDateTime lastSeen;
+    // Updated for every message so these are kept as epoch millis and only turned into dates when read, 0 is unknown.
+    private final long userId;
+    private volatile long lastMessage;
+    private volatile long lastSpokeGuild;
+    private volatile long lastSeen;
 
-    public PlayerCache(String userId, LocalDateTime lastMessage, String lastSpokeGuild, LocalDateTime lastSeen) {
+    public PlayerCache(long userId) {
         this.userId = userId;
-        this.lastMessage = lastMessage;
-        this.lastSpokeGuild = lastSpokeGuild;
-        this.lastSeen = lastSeen;
     }
 
-    public String getUserId() {
+    public long getUserId() {
         return userId;
     }
 
     public LocalDateTime getLastMessage() {
-        return lastMessage;
+        return toDateTime(lastMessage);
     }
 
-    public void setLastMessage(LocalDateTime lastMessage) {
+    public void setLastMessage(long lastMessage) {
         this.lastMessage = lastMessage;
     }
 
-    public String getLastSpokeGuild() {
+    public long getLastSpokeGuild() {
         return lastSpokeGuild;
     }
 
-    public void setLastSpokeGuild(String lastSpokeGuild) {
+    public void setLastSpokeGuild(long lastSpokeGuild) {
         this.lastSpokeGuild = lastSpokeGuild;
     }
 
     public LocalDateTime getLastSeen() {
-        return lastSeen;
+        return toDateTime(lastSeen);
     }
 
-    public void setLastSeen(LocalDateTime lastSeen) {
+    public void setLastSeen(long lastSeen) {
         this.lastSeen = lastSeen;
     }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return millis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneOffset.UTC);
+    }
 }
@@ -1,11 +1,13 @@
 package stream.flarebot.flarebot.objects;
 
 import stream.flarebot.flarebot.util.RandomUtils;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class Welcome {
+public class Welcome extends DirtyTracked {
 
     private List<String> dmMessages;
     private List<String> guildMessages;
@@ -22,6 +24,7 @@ public class Welcome {
 
     public Welcome setChannelId(String channelId) {
         this.channelId = channelId;
+        markDirty();
         return this;
     }
 
@@ -30,11 +33,11 @@ public class Welcome {
     }
 
     public List<String> getDmMessages() {
-        return this.dmMessages;
+        return TrackedCollections.list(this.dmMessages, this::markDirty);
     }
 
     public List<String> getGuildMessages() {
-        return this.guildMessages;
+        return TrackedCollections.list(this.guildMessages, this::markDirty);
     }
 
     public String getRandomDmMessage() {
@@ -54,10 +57,21 @@ public class Welcome {
     }
 
     public void setDmEnabled(boolean enabled) {
-        this.dmEnabled = enabled;
+        if (this.dmEnabled != enabled) {
+            this.dmEnabled = enabled;
+            markDirty();
+        }
     }
 
     public void setGuildEnabled(boolean enabled) {
-        this.guildEnabled = enabled;
+        if (this.guildEnabled != enabled) {
+            this.guildEnabled = enabled;
+            markDirty();
+        }
+    }
+
+    public int getEstimatedSize() {
+        return SizeUtils.OBJECT_SIZE + SizeUtils.estimate(dmMessages) + SizeUtils.estimate(guildMessages)
+                + SizeUtils.estimate(channelId);
     }
 }
@@ -2,13 +2,17 @@ package stream.flarebot.flarebot.permissions;
 
 import net.dv8tion.jda.core.entities.Member;
 import stream.flarebot.flarebot.Config;
+import stream.flarebot.flarebot.objects.DirtyTracked;
+import stream.flarebot.flarebot.util.TrackedCollections;
+import stream.flarebot.flarebot.util.general.SizeUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-public class PerGuildPermissions {
+public class PerGuildPermissions extends DirtyTracked {
 
     private final List<Group> groups = Collections.synchronizedList(new ArrayList<>());
     private final ConcurrentHashMap<String, User> users = new ConcurrentHashMap<>();
@@ -21,9 +25,10 @@ public class PerGuildPermissions {
             return true;
         if (user.getPermissions().contains(net.dv8tion.jda.core.Permission.ADMINISTRATOR))
             return true;
-        if (getUser(user).hasPermission(permission) == Permission.Reply.ALLOW)
+        User permUser = lookupUser(user);
+        if (permUser.hasPermission(permission) == Permission.Reply.ALLOW)
             return true;
-        if (getUser(user).hasPermission(permission) == Permission.Reply.DENY) {
+        if (permUser.hasPermission(permission) == Permission.Reply.DENY) {
             return false;
         }
         Permission.Reply hasPerm = Permission.Reply.NEUTRAL;
@@ -35,7 +40,7 @@ public class PerGuildPermissions {
                         hasPerm = g.hasPermission(permission);
                     }
                 }
-                if (getUser(user).getGroups().contains(g.getName())) {
+                if (permUser.getGroups().contains(g.getName())) {
                     hasPerm = g.hasPermission(permission);
                 }
             }
@@ -48,11 +53,36 @@ public class PerGuildPermissions {
         }
     }
 
+    /**
+     * Gets the permission user for a member so it can be changed, this marks the permissions as dirty.
+     * Use {@link #hasPermission(Member, Permission)} for checks.
+     *
+     * @param user The member to get the permission user of.
+     * @return The permission user, this is created if the member does not have one yet.
+     */
     public User getUser(Member user) {
+        markDirty();
+        return lookupUser(user);
+    }
+
+    private User lookupUser(Member user) {
         return users.computeIfAbsent(user.getUser().getId(), key -> new User());
     }
 
+    /**
+     * Gets a group so it can be changed, this marks the permissions as dirty.
+     *
+     * @param group The name of the group, this is case insensitive.
+     * @return The group or null if there is no group with that name.
+     */
     public Group getGroup(String group) {
+        Group g = findGroup(group);
+        if (g != null)
+            markDirty();
+        return g;
+    }
+
+    private Group findGroup(String group) {
         synchronized (groups) {
             for (Group g : groups) {
                 if (g.getName().equalsIgnoreCase(group)) return g;
@@ -66,12 +96,14 @@ public class PerGuildPermissions {
             return false;
         } else {
             groups.add(new Group(group));
+            markDirty();
             return true;
         }
     }
 
     public void deleteGroup(String group) {
-        groups.remove(getGroup(group));
+        if (groups.remove(findGroup(group)))
+            markDirty();
     }
 
     public boolean hasGroup(String group) {
@@ -84,7 +116,7 @@ public class PerGuildPermissions {
     }
 
     public List<Group> getGroups() {
-        return groups;
+        return TrackedCollections.list(groups, this::markDirty);
     }
 
     public static boolean isAdmin(net.dv8tion.jda.core.entities.User user) {
@@ -95,6 +127,7 @@ public class PerGuildPermissions {
         int index = groups.indexOf(group);
         groups.remove(index);
         groups.add(pos, group);
+        markDirty();
     }
 
     public boolean cloneGroup(Group group, String newGroupName) {
@@ -105,6 +138,7 @@ public class PerGuildPermissions {
             for(String permission : group.getPermissions())
                 newGroup.addPermission(permission);
             groups.add(newGroup);
+            markDirty();
             return true;
         }
     }
@@ -114,7 +148,22 @@ public class PerGuildPermissions {
             return false;
         else {
             group.setName(name);
+            markDirty();
             return true;
         }
     }
+
+    public int getEstimatedSize() {
+        int size = SizeUtils.OBJECT_SIZE;
+        synchronized (groups) {
+            for (Group group : groups)
+                size += SizeUtils.ENTRY_SIZE + SizeUtils.estimate(group.getName())
+                        + SizeUtils.estimate(group.getRoleId()) + SizeUtils.estimate(group.getPermissions());
+        }
+        for (Map.Entry<String, User> user : users.entrySet())
+            size += SizeUtils.ENTRY_SIZE + SizeUtils.estimate(user.getKey())
+                    + SizeUtils.estimate(user.getValue().getGroups())
+                    + SizeUtils.estimate(user.getValue().getPermissions());
+        return size;
+    }
 }
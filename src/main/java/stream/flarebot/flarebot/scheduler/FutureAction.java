@@ -4,7 +4,6 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Period;
 import stream.flarebot.flarebot.DataHandler;
-import stream.flarebot.flarebot.FlareBot;
 import stream.flarebot.flarebot.Getters;
 import stream.flarebot.flarebot.database.DatabaseManager;
 import stream.flarebot.flarebot.mod.modlog.ModAction;
@@ -15,10 +14,20 @@ import stream.flarebot.flarebot.util.general.FormatUtils;
 import stream.flarebot.flarebot.util.general.GuildUtils;
 
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
 
 public class FutureAction {
 
+    /**
+     * Unique ID of the task, this is what it is stored by.
+     */
+    private String taskId;
     /**
      * Guild ID it was executed in
      */
@@ -56,8 +65,9 @@ public class FutureAction {
      */
     private Action action;
 
-    public FutureAction(long guildId, long channelId, long responsible, long target, String content,
+    public FutureAction(String taskId, long guildId, long channelId, long responsible, long target, String content,
                         DateTime expires, DateTime created, Action action) {
+        this.taskId = taskId;
         this.guildId = guildId;
         this.channelId = channelId;
         this.responsible = responsible;
@@ -76,6 +86,7 @@ public class FutureAction {
 
     public FutureAction(long guildId, long channelId, long responsible, long target, String content,
                         Period delay, Action action) {
+        this.taskId = UUID.randomUUID().toString();
         this.guildId = guildId;
         this.channelId = channelId;
         this.responsible = responsible;
@@ -91,6 +102,7 @@ public class FutureAction {
     }
 
     public FutureAction(long guildId, long channelId, long responsible, String content, Period delay, Action action) {
+        this.taskId = UUID.randomUUID().toString();
         this.guildId = guildId;
         this.channelId = channelId;
         this.responsible = responsible;
@@ -102,6 +114,44 @@ public class FutureAction {
         this.action = action;
     }
 
+    static FutureAction fromResultSet(ResultSet set) throws SQLException {
+        return new FutureAction(set.getString("task_id"), set.getLong("guild_id"), set.getLong("channel_id"),
+                set.getLong("responsible"),
+                set.getLong("target"),
+                set.getString("content"),
+                new DateTime(set.getTimestamp("expires_at")),
+                new DateTime(set.getTimestamp("created_at")),
+                Action.valueOf(set.getString("action").toUpperCase())
+        );
+    }
+
+    /**
+     * Get the reminders a user has set, this reads every reminder from the database including the ones which aren't
+     * due soon enough to be loaded.
+     *
+     * @param userId The ID of the user.
+     * @return The user's reminders ordered by when they are due.
+     */
+    public static List<FutureAction> getReminders(long userId) {
+        List<FutureAction> reminders = DatabaseManager.query("future_tasks.reminders", connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT * FROM future_tasks WHERE responsible = ? " +
+                    "AND action IN (?, ?) ORDER BY expires_at");
+            ps.setLong(1, userId);
+            ps.setString(2, Action.REMINDER.name());
+            ps.setString(3, Action.DM_REMINDER.name());
+            ResultSet set = ps.executeQuery();
+            List<FutureAction> actions = new ArrayList<>();
+            while (set.next())
+                actions.add(fromResultSet(set));
+            return actions;
+        });
+        return reminders == null ? new ArrayList<>() : reminders;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
     public long getGuildId() {
         return guildId;
     }
@@ -135,8 +185,18 @@ public class FutureAction {
     }
 
     public void execute() {
+        if (perform())
+            delete();
+    }
+
+    /**
+     * Run the action without deleting it.
+     *
+     * @return If the action was run, false if the guild isn't available on this instance.
+     */
+    boolean perform() {
         GuildWrapper gw = DataHandler.getGuild(guildId);
-        if (gw == null || gw.getGuild() == null) return;
+        if (gw == null || gw.getGuild() == null) return false;
         switch (action) {
             case TEMP_MUTE:
                 if (gw.getGuild().getTextChannelById(channelId) != null) {
@@ -176,59 +236,55 @@ public class FutureAction {
             default:
                 break;
         }
-        delete();
+        return true;
     }
 
+    /**
+     * Save the action and schedule it if it is due soon, saving it again replaces the stored copy.
+     */
     public void queue() {
-        // I have to minus here since this has the complete end time.
-        Scheduler.delayTask(this::execute, "FutureTask-" + action.name() + "-" + expires.toString(),
-                getExpires().minus(System.currentTimeMillis()).getMillis());
-        DatabaseManager.run(connection -> {
-            PreparedStatement query = connection.prepareStatement("SELECT * FROM future_tasks WHERE guild_id = ? AND channel_id = ? AND created_at = ?");
-            query.setLong(1, guildId);
-            query.setLong(2, channelId);
-            query.setTimestamp(3, new Timestamp(created.getMillis()));
-            if (query.executeQuery().isBeforeFirst()) {
-                PreparedStatement update = connection.prepareStatement("UPDATE future_tasks SET responsible = ?, " +
-                        "target = ?, content = ?, expires_at = ?, action = ? WHERE guild_id = ? AND channel_id = ? " +
-                        "AND created_at = ?");
-                update.setLong(1, responsible);
-                update.setLong(2, target);
-                update.setString(3, content);
-                update.setTimestamp(4, new Timestamp(expires.getMillis()));
-                update.setString(5, action.name());
-                update.setLong(6, guildId);
-                update.setLong(7, channelId);
-                update.setTimestamp(8, new Timestamp(created.getMillis()));
-                update.executeUpdate();
-            } else {
-                PreparedStatement insert = connection.prepareStatement("INSERT INTO future_tasks (guild_id, channel_id, responsible, target, content, expires_at, created_at, action) VALUES (?,? ,?, ?,? ,? ,?, ?)");
-                insert.setLong(1, guildId);
-                insert.setLong(2, channelId);
-                insert.setLong(3, responsible);
-                insert.setLong(4, target);
-                insert.setString(5, content);
-                insert.setTimestamp(6, new Timestamp(expires.getMillis()));
-                insert.setTimestamp(7, new Timestamp(created.getMillis()));
-                insert.setString(8, action.name());
-                insert.executeUpdate();
-            }
-
+        DatabaseManager.run("future_tasks.save", connection -> {
+            PreparedStatement upsert = connection.prepareStatement("INSERT INTO future_tasks (task_id, guild_id, " +
+                    "channel_id, responsible, target, content, expires_at, created_at, action) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT (task_id) DO UPDATE SET " +
+                    "responsible = EXCLUDED.responsible, target = EXCLUDED.target, content = EXCLUDED.content, " +
+                    "expires_at = EXCLUDED.expires_at, action = EXCLUDED.action");
+            upsert.setString(1, taskId);
+            upsert.setLong(2, guildId);
+            upsert.setLong(3, channelId);
+            upsert.setLong(4, responsible);
+            upsert.setLong(5, target);
+            upsert.setString(6, content);
+            upsert.setTimestamp(7, new Timestamp(expires.getMillis()));
+            upsert.setTimestamp(8, new Timestamp(created.getMillis()));
+            upsert.setString(9, action.name());
+            upsert.executeUpdate();
         });
-        FlareBot.instance().getFutureActions().add(this);
+        FutureActionScheduler.schedule(this);
     }
 
     public void delete() {
-        FlareBot.instance().getFutureActions().remove(this);
-        DatabaseManager.run(connection -> {
-            PreparedStatement delete = connection.prepareStatement("DELETE FROM future_tasks WHERE guild_id = ? " +
-                    "AND channel_id = ? AND created_at = ?");
-            delete.setLong(1, guildId);
-            delete.setLong(2, channelId);
-            delete.setTimestamp(3, new Timestamp(created.getMillis()));
+        DatabaseManager.run("future_tasks.delete", connection -> {
+            PreparedStatement delete = connection.prepareStatement("DELETE FROM future_tasks WHERE task_id = ?");
+            delete.setString(1, taskId);
+            delete.execute();
+        });
+        // Only after the delete so it can't be loaded and scheduled again.
+        FutureActionScheduler.cancel(this);
+    }
+
+    /**
+     * Delete actions which have been run with one statement.
+     *
+     * @param taskIds The IDs of the actions.
+     */
+    static void deleteAll(Collection<String> taskIds) {
+        if (taskIds.isEmpty()) return;
+        DatabaseManager.run("future_tasks.delete_all", connection -> {
+            PreparedStatement delete = connection.prepareStatement("DELETE FROM future_tasks WHERE task_id = ANY(?)");
+            delete.setArray(1, connection.createArrayOf("text", taskIds.toArray()));
             delete.execute();
         });
-        Scheduler.cancelTask("FutureTask-" + action.name() + "-" + expires.toString());
     }
 
     public enum Action {
@@ -0,0 +1,128 @@
+package stream.flarebot.flarebot.scheduler;
+
+import com.google.common.util.concurrent.RateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.metrics.Metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs the future actions which became due while FlareBot was down.
+ * <p>
+ * Guilds are caught up in parallel but the actions of a guild run one after another so they happen in the order
+ * they were due. Every action makes REST calls so all of them share one {@link #REST_PER_SECOND} budget, this
+ * keeps the catch up from hitting the global rate limit which would also slow down everything else. Actions which
+ * ran are deleted in batches.
+ */
+class FutureActionCatchUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(FutureActionCatchUp.class);
+
+    private static final int THREADS = 4;
+    private static final double REST_PER_SECOND = 10;
+    private static final int DELETE_BATCH_SIZE = 100;
+    private static final int PROGRESS_INTERVAL = 500;
+
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final ExecutorService executor = Executors.newFixedThreadPool(THREADS, r -> {
+        Thread thread = new Thread(r, "FutureAction-CatchUp-" + threads.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final RateLimiter limiter = RateLimiter.create(REST_PER_SECOND);
+
+    private final List<String> toDelete = new ArrayList<>();
+    private final Consumer<List<String>> onDeleted;
+    private final Consumer<String> onSkipped;
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private int total;
+
+    /**
+     * @param onDeleted Called with the IDs of the actions which ran once they have been deleted.
+     * @param onSkipped Called with the ID of each action which wasn't run since its guild isn't available.
+     */
+    FutureActionCatchUp(Consumer<List<String>> onDeleted, Consumer<String> onSkipped) {
+        this.onDeleted = onDeleted;
+        this.onSkipped = onSkipped;
+    }
+
+    /**
+     * Start catching up, this returns straight away.
+     *
+     * @param overdue The actions which are overdue.
+     * @return A future which completes once every action has been handled.
+     */
+    CompletableFuture<Void> run(Collection<FutureAction> overdue) {
+        Map<Long, List<FutureAction>> byGuild = new LinkedHashMap<>();
+        for (FutureAction action : overdue)
+            byGuild.computeIfAbsent(action.getGuildId(), id -> new ArrayList<>()).add(action);
+        total = overdue.size();
+        Metrics.futureActionsOverdue.inc(total);
+        logger.info("Catching up on {} overdue future actions in {} guilds", total, byGuild.size());
+
+        long start = System.currentTimeMillis();
+        CompletableFuture<?>[] guilds = byGuild.values().stream()
+                .map(actions -> CompletableFuture.runAsync(() -> actions.forEach(this::handle), executor))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(guilds).whenComplete((v, e) -> {
+            deleteBatch(true);
+            if (e != null)
+                logger.error("Failed to catch up on future actions", e);
+            logger.info("Caught up on {} future actions in {}ms, {} ran, {} failed and {} are for guilds which " +
+                            "aren't available", total, System.currentTimeMillis() - start, succeeded.get(),
+                    failed.get(), skipped.get());
+        });
+    }
+
+    private void handle(FutureAction action) {
+        try {
+            limiter.acquire();
+            if (action.perform()) {
+                succeeded.incrementAndGet();
+                Metrics.futureActionsCaughtUp.labels("success").inc();
+                synchronized (toDelete) {
+                    toDelete.add(action.getTaskId());
+                }
+                deleteBatch(false);
+            } else {
+                skipped.incrementAndGet();
+                Metrics.futureActionsCaughtUp.labels("skipped").inc();
+                onSkipped.accept(action.getTaskId());
+            }
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            Metrics.futureActionsCaughtUp.labels("failed").inc();
+            logger.error("Failed to execute future action " + action.getTaskId()
+                    + "\nAction: " + action.getAction() + "\nResponsible: " + action.getResponsible()
+                    + "\nTarget: " + action.getTarget() + "\nContent: " + action.getContent(), e);
+        } finally {
+            Metrics.futureActionsOverdue.dec();
+            int done = succeeded.get() + failed.get() + skipped.get();
+            if (done % PROGRESS_INTERVAL == 0)
+                logger.info("Caught up on {}/{} future actions", done, total);
+        }
+    }
+
+    private void deleteBatch(boolean force) {
+        List<String> batch;
+        synchronized (toDelete) {
+            if (toDelete.isEmpty() || (!force && toDelete.size() < DELETE_BATCH_SIZE)) return;
+            batch = new ArrayList<>(toDelete);
+            toDelete.clear();
+        }
+        FutureAction.deleteAll(batch);
+        onDeleted.accept(batch);
+    }
+}
@@ -0,0 +1,164 @@
+package stream.flarebot.flarebot.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import stream.flarebot.flarebot.Getters;
+import stream.flarebot.flarebot.database.DatabaseManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the {@link FutureAction}s which are stored in the future_tasks table.
+ * <p>
+ * Only the actions which are due within the next {@link #WINDOW} are kept in memory, every
+ * {@link #WINDOW_REFRESH} the window is moved on and the actions which are now inside of it are loaded a page at a
+ * time. The loaded actions are timed with a {@link TimingWheel}, actions which are already overdue, like after
+ * FlareBot has been down, are handed to a {@link FutureActionCatchUp} instead.
+ */
+public class FutureActionScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(FutureActionScheduler.class);
+
+    private static final long WINDOW = TimeUnit.MINUTES.toMillis(10);
+    private static final long WINDOW_REFRESH = TimeUnit.MINUTES.toMillis(5);
+    private static final int PAGE_SIZE = 500;
+
+    private static final AtomicInteger threads = new AtomicInteger();
+    private static final TimingWheel wheel = new TimingWheel("FutureAction-Wheel", 1000, 512,
+            Executors.newFixedThreadPool(2, r -> new Thread(r, "FutureAction-" + threads.incrementAndGet())));
+
+    private static final Map<String, TimingWheel.Timeout> scheduled = new ConcurrentHashMap<>();
+    // Actions which were overdue when loaded, failed ones stay here while their row exists so they are only retried
+    // after a restart.
+    private static final Set<String> catchingUp = ConcurrentHashMap.newKeySet();
+    // When actions last ran or were deleted, a page read just before that can still have their row so these are
+    // skipped for a window instead of being run again.
+    private static final Map<String, Long> completed = new ConcurrentHashMap<>();
+    private static volatile long windowEnd;
+
+    /**
+     * Load the first window and keep moving it on.
+     */
+    public static void start() {
+        new FlareBotTask("FutureAction-Window") {
+            @Override
+            public void run() {
+                loadWindow();
+            }
+        }.repeat(0, WINDOW_REFRESH);
+    }
+
+    /**
+     * Schedule an action which was just saved if it is due within the current window, otherwise it is loaded when
+     * the window reaches it.
+     */
+    static void schedule(FutureAction action) {
+        if (action.getExpires().getMillis() < windowEnd)
+            add(action);
+    }
+
+    static void cancel(FutureAction action) {
+        completed.put(action.getTaskId(), System.currentTimeMillis());
+        TimingWheel.Timeout timeout = scheduled.remove(action.getTaskId());
+        if (timeout != null)
+            timeout.cancel();
+    }
+
+    public static int getScheduledCount() {
+        return scheduled.size();
+    }
+
+    private static void add(FutureAction action) {
+        if (catchingUp.contains(action.getTaskId()) || completed.containsKey(action.getTaskId())) return;
+        // Already loaded actions are found again each time the window moves on until they have run.
+        scheduled.computeIfAbsent(action.getTaskId(), id -> wheel.schedule(() -> {
+            try {
+                action.execute();
+            } catch (Exception e) {
+                logger.error("Failed to execute future action " + action.getTaskId()
+                        + "\nAction: " + action.getAction() + "\nResponsible: " + action.getResponsible()
+                        + "\nTarget: " + action.getTarget() + "\nContent: " + action.getContent(), e);
+            } finally {
+                // Also when it wasn't deleted, like when it failed or the guild has gone.
+                completed.put(id, System.currentTimeMillis());
+                scheduled.remove(id);
+            }
+        }, action.getExpires().getMillis() - System.currentTimeMillis()));
+    }
+
+    private static void loadWindow() {
+        long start = System.currentTimeMillis();
+        long end = start + WINDOW;
+        // Moved before loading so anything saved while loading is either scheduled straight away or loaded here.
+        windowEnd = end;
+        completed.values().removeIf(time -> time < start - WINDOW);
+
+        int loaded = 0;
+        List<FutureAction> overdue = new ArrayList<>();
+        Set<String> stillOverdue = new HashSet<>();
+        Timestamp lastExpires = new Timestamp(0);
+        String lastId = "";
+        while (true) {
+            List<FutureAction> page = loadPage(end, lastExpires, lastId);
+            if (page == null) break;
+            for (FutureAction action : page) {
+                boolean due = action.getExpires().getMillis() <= start;
+                if (due)
+                    stillOverdue.add(action.getTaskId());
+                // Every process loads every action, only the process with the guild runs it.
+                if (Getters.getGuildById(action.getGuildId()) == null)
+                    continue;
+                if (!due)
+                    add(action);
+                else if (!scheduled.containsKey(action.getTaskId()) && !completed.containsKey(action.getTaskId())
+                        && catchingUp.add(action.getTaskId()))
+                    overdue.add(action);
+            }
+            loaded += page.size();
+            if (page.size() < PAGE_SIZE) break;
+            FutureAction last = page.get(page.size() - 1);
+            lastExpires = new Timestamp(last.getExpires().getMillis());
+            lastId = last.getTaskId();
+        }
+        // Anything not loaded again has been deleted.
+        catchingUp.retainAll(stillOverdue);
+        if (!overdue.isEmpty())
+            new FutureActionCatchUp(FutureActionScheduler::caughtUp, catchingUp::remove).run(overdue);
+        logger.debug("Loaded {} future actions due in the next {}ms in {}ms, {} are scheduled", loaded, WINDOW,
+                System.currentTimeMillis() - start, scheduled.size());
+    }
+
+    private static void caughtUp(List<String> deleted) {
+        long now = System.currentTimeMillis();
+        for (String id : deleted)
+            completed.put(id, now);
+        catchingUp.removeAll(deleted);
+    }
+
+    private static List<FutureAction> loadPage(long end, Timestamp lastExpires, String lastId) {
+        return DatabaseManager.query("future_tasks.load", connection -> {
+            PreparedStatement ps = connection.prepareStatement("SELECT * FROM future_tasks " +
+                    "WHERE expires_at < ? AND (expires_at, task_id) > (?, ?) ORDER BY expires_at, task_id LIMIT ?");
+            ps.setTimestamp(1, new Timestamp(end));
+            ps.setTimestamp(2, lastExpires);
+            ps.setString(3, lastId);
+            ps.setInt(4, PAGE_SIZE);
+            ResultSet set = ps.executeQuery();
+            List<FutureAction> actions = new ArrayList<>();
+            while (set.next())
+                actions.add(FutureAction.fromResultSet(set));
+            return actions;
+        });
+    }
+}
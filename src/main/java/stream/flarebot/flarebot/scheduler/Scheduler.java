@@ -1,74 +1,66 @@
 package stream.flarebot.flarebot.scheduler;
 
+import io.prometheus.client.Histogram;
 import org.joda.time.Period;
 import stream.flarebot.flarebot.FlareBot;
+import stream.flarebot.flarebot.metrics.Metrics;
 
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class Scheduler {
 
     private static final ScheduledExecutorService timer = Executors
             .newScheduledThreadPool(10, r -> new Thread(r, "FlareBot Scheduled Task"));
 
-    private static final Map<String, ScheduledFuture<?>> tasks = new HashMap<>();
-    private static final Map<String, ScheduledFuture<?>> persistentTasks = new HashMap<>();
+    // Names like "Votes-<message ID>" are one per task, the ID is dropped so they share a metric.
+    private static final Pattern TASK_ID = Pattern.compile("-?\\d+$");
+
+    private static final Map<String, ScheduledFuture<?>> tasks = new ConcurrentHashMap<>();
 
     static {
         Runtime.getRuntime().addShutdownHook(new Thread(timer::shutdownNow));
     }
 
     public static boolean scheduleRepeating(Runnable task, String taskName, long delay, long interval) {
-        if (tasks.containsKey(taskName)) {
-            return false;
-        }
-        tasks.put(taskName,
-                timer.scheduleAtFixedRate(() -> {
-                    try {
-                        task.run();
-                    } catch (Exception e) {
-                        FlareBot.LOGGER.error("Error in " + taskName + " task scheduler!", e);
-                    }
-                }, delay, interval, TimeUnit.MILLISECONDS));
-        return true;
+        boolean[] added = new boolean[1];
+        tasks.computeIfAbsent(taskName, name -> {
+            added[0] = true;
+            return timer.scheduleAtFixedRate(new TimedTask(task, name, delay, interval), delay, interval,
+                    TimeUnit.MILLISECONDS);
+        });
+        return added[0];
     }
 
+    /**
+     * Run a task once after a delay, the task is removed from {@link #getTasks()} once it has run. A task which is
+     * already scheduled with the same name is cancelled.
+     */
     public static void delayTask(Runnable task, String taskName, long delay) {
-        tasks.put(taskName, timer.schedule(task, delay, TimeUnit.MILLISECONDS));
-    }
-
-    public static void delayTask(FutureAction action) {
-        persistentTasks.put(action.toString() + System.currentTimeMillis(), timer.schedule(action::execute,
-                action.getExpires().getMillis(), TimeUnit.MILLISECONDS));
+        TimedTask timed = new TimedTask(task, taskName, delay, 0);
+        tasks.compute(taskName, (name, old) -> {
+            if (old != null)
+                old.cancel(false);
+            return timed.future = timer.schedule(timed, delay, TimeUnit.MILLISECONDS);
+        });
     }
 
     public static boolean cancelTask(String taskName) {
-        Iterator<Map.Entry<String, ScheduledFuture<?>>> i = tasks.entrySet().iterator();
-        while (i.hasNext()) {
-            Map.Entry<String, ScheduledFuture<?>> next = i.next();
-            if (next.getKey() == null) continue;
-            if (next.getKey().equals(taskName)) {
-                next.getValue().cancel(false);
-                i.remove();
-                return true;
-            }
-        }
-        return false;
+        ScheduledFuture<?> task = tasks.remove(taskName);
+        if (task == null) return false;
+        task.cancel(false);
+        return true;
     }
 
     public static Map<String, ScheduledFuture<?>> getTasks() {
         return tasks;
     }
 
-    public static Map<String, ScheduledFuture<?>> getPersistentTasks() {
-        return persistentTasks;
-    }
-
     public static void queueFutureAction(long guuildId, long channelId, long responsible, long target, String reason,
                                          Period delay, FutureAction.Action action) {
         new FutureAction(guuildId, channelId, responsible, target, reason, delay, action).queue();
@@ -78,4 +70,46 @@ public class Scheduler {
                                          Period delay, FutureAction.Action action) {
         new FutureAction(guuildId, channelId, responsible, reason, delay, action).queue();
     }
+
+    /**
+     * Records how late and how long each run is, one-shot tasks also remove themselves from the registry.
+     */
+    private static class TimedTask implements Runnable {
+
+        private final Runnable task;
+        private final String name;
+        private final long interval;
+        private final Histogram.Child lag;
+        private final Histogram.Child duration;
+        private long nextRun;
+        // Only set for one-shot tasks, read under the map lock so it is always set by the time it is read.
+        private ScheduledFuture<?> future;
+
+        private TimedTask(Runnable task, String name, long delay, long interval) {
+            this.task = task;
+            this.name = name;
+            this.interval = interval;
+            String label = TASK_ID.matcher(name).replaceFirst("");
+            this.lag = Metrics.schedulerLag.labels(label);
+            this.duration = Metrics.schedulerTaskDuration.labels(label);
+            this.nextRun = System.currentTimeMillis() + delay;
+        }
+
+        @Override
+        public void run() {
+            long start = System.currentTimeMillis();
+            lag.observe(Math.max(start - nextRun, 0) / 1000D);
+            nextRun += interval;
+            Histogram.Timer timer = duration.startTimer();
+            try {
+                task.run();
+            } catch (Exception e) {
+                FlareBot.LOGGER.error("Error in " + name + " task scheduler!", e);
+            } finally {
+                timer.observeDuration();
+                if (interval == 0)
+                    tasks.computeIfPresent(name, (key, current) -> current == future ? null : current);
+            }
+        }
+    }
 }
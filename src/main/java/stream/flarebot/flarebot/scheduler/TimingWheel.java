@@ -0,0 +1,136 @@
+package stream.flarebot.flarebot.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Hashed timing wheel for large amounts of timers which don't need to be precise, like the {@link FutureAction}s.
+ * <p>
+ * Adding and cancelling a timer is O(1) and nothing is done per timer on each tick apart from the ones in the
+ * current bucket, unlike a {@link java.util.concurrent.ScheduledExecutorService} which keeps every timer in a heap.
+ * Timers fire up to one tick late and run on the given executor, never on the wheel thread.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private final long tickDuration;
+    private final List<Timeout>[] buckets;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final long startTime = System.currentTimeMillis();
+    private long tick;
+
+    /**
+     * @param name         The name of the wheel thread.
+     * @param tickDuration How long each tick is in milliseconds.
+     * @param size         The amount of buckets, rounded up to a power of 2.
+     * @param executor     Runs the timers once they are due.
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(String name, long tickDuration, int size, Executor executor) {
+        this.tickDuration = tickDuration;
+        int buckets = Integer.highestOneBit(Math.max(size, 2) - 1) << 1;
+        this.buckets = new List[buckets];
+        for (int i = 0; i < buckets; i++)
+            this.buckets[i] = new ArrayList<>();
+        this.mask = buckets - 1;
+        this.executor = executor;
+
+        Thread thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Run a task after a delay.
+     *
+     * @param task  The task to run.
+     * @param delay The delay in milliseconds, anything below 0 runs on the next tick.
+     * @return The timeout which can be used to cancel the task.
+     */
+    public Timeout schedule(Runnable task, long delay) {
+        Timeout timeout = new Timeout(task, System.currentTimeMillis() + Math.max(delay, 0));
+        added.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            long sleep = startTime + (tick + 1) * tickDuration - System.currentTimeMillis();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            transferAdded();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.cancelled) continue;
+            // Anything which is already due goes in the current bucket.
+            long deadlineTick = Math.max((timeout.deadline - startTime) / tickDuration, tick);
+            timeout.rounds = (deadlineTick - tick) / buckets.length;
+            buckets[(int) (deadlineTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.rounds <= 0) {
+                it.remove();
+                try {
+                    executor.execute(timeout.task);
+                } catch (RejectedExecutionException e) {
+                    logger.error("Failed to run a timer, the executor rejected it", e);
+                }
+            } else
+                timeout.rounds--;
+        }
+    }
+
+    public static class Timeout {
+
+        private final Runnable task;
+        private final long deadline;
+        private long rounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Stop the task from running if it hasn't started yet. The timeout is dropped from the wheel when its
+         * bucket is next reached.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
@@ -1,35 +1,159 @@
 package stream.flarebot.flarebot.util;
 
+import com.google.gson.reflect.TypeToken;
+import stream.flarebot.flarebot.database.DatabaseManager;
+import stream.flarebot.flarebot.database.GuildGson;
 import stream.flarebot.flarebot.objects.Report;
+import stream.flarebot.flarebot.objects.ReportMessage;
+import stream.flarebot.flarebot.objects.ReportStatus;
 
+import java.lang.reflect.Type;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * The reports made in a guild, these are stored in the reports table and only read when they are needed.
+ */
 public final class ReportManager {
 
-    private List<Report> reports = new ArrayList<>();
+    private static final Type MESSAGES_TYPE = new TypeToken<List<ReportMessage>>() {}.getType();
 
-    public List<Report> getReports() {
-        Collections.sort(reports);
+    private final long guildId;
+
+    public ReportManager(long guildId) {
+        this.guildId = guildId;
+    }
+
+    /**
+     * Gets a page of reports ordered by ID.
+     *
+     * @param page    The page, 0 indexed.
+     * @param perPage The amount of reports per page.
+     * @return The reports on that page.
+     */
+    public List<Report> getReports(int page, int perPage) {
+        List<Report> reports = new ArrayList<>();
+        DatabaseManager.run("reports.page", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT * FROM reports WHERE guild_id = ? " +
+                    "ORDER BY report_id LIMIT ? OFFSET ?");
+            ps.setLong(1, guildId);
+            ps.setInt(2, perPage);
+            ps.setInt(3, page * perPage);
+            ResultSet set = ps.executeQuery();
+            while (set.next())
+                reports.add(getReport(set));
+        });
         return reports;
     }
 
+    public int getCount() {
+        Integer count = DatabaseManager.query("reports.count", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM reports WHERE guild_id = ?");
+            ps.setLong(1, guildId);
+            ResultSet set = ps.executeQuery();
+            return set.next() ? set.getInt(1) : 0;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Gets a report.
+     *
+     * @param id The ID of the report.
+     * @return The report or null if there is no report with that ID.
+     */
     public Report getReport(int id) {
-        if (reports.size() >= id)
-            return reports.get(id - 1);
-        return null;
+        return DatabaseManager.query("reports.get", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT * FROM reports WHERE guild_id = ? AND report_id = ?");
+            ps.setLong(1, guildId);
+            ps.setInt(2, id);
+            ResultSet set = ps.executeQuery();
+            return set.next() ? getReport(set) : null;
+        });
     }
 
     public void report(Report report) {
-        reports.add(report);
+        DatabaseManager.run("reports.add", conn -> insert(conn, guildId, report, false));
+    }
+
+    /**
+     * Changes the status of a report and saves it.
+     *
+     * @param report The report to change.
+     * @param status The new status.
+     */
+    public void setStatus(Report report, ReportStatus status) {
+        report.setStatus(status);
+        DatabaseManager.run("reports.status", conn -> {
+            PreparedStatement ps = conn.prepareStatement("UPDATE reports SET status = ? WHERE guild_id = ? AND report_id = ?");
+            ps.setString(1, status.name());
+            ps.setLong(2, guildId);
+            ps.setInt(3, report.getId());
+            ps.executeUpdate();
+        });
     }
 
     public int getLastId() {
-        if (!getReports().isEmpty()) {
-            return reports.size();
-        } else {
-            return 0;
+        Integer id = DatabaseManager.query("reports.last_id", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT MAX(report_id) FROM reports WHERE guild_id = ?");
+            ps.setLong(1, guildId);
+            ResultSet set = ps.executeQuery();
+            return set.next() ? set.getInt(1) : 0;
+        });
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * Copy reports which were stored with their guilds into the reports table as one batch, existing reports are kept.
+     *
+     * @param reports The reports of each guild, keyed by the guild ID.
+     */
+    public static void importReports(Connection conn, Map<Long, List<Report>> reports) throws SQLException {
+        PreparedStatement ps = prepareInsert(conn, true);
+        for (Map.Entry<Long, List<Report>> guild : reports.entrySet()) {
+            for (Report report : guild.getValue()) {
+                setInsert(ps, guild.getKey(), report);
+                ps.addBatch();
+            }
         }
+        ps.executeBatch();
+    }
+
+    private static void insert(Connection conn, long guildId, Report report, boolean keepExisting) throws SQLException {
+        PreparedStatement ps = prepareInsert(conn, keepExisting);
+        setInsert(ps, guildId, report);
+        ps.executeUpdate();
+    }
+
+    private static PreparedStatement prepareInsert(Connection conn, boolean keepExisting) throws SQLException {
+        return conn.prepareStatement("INSERT INTO reports (guild_id, report_id, message, reporter_id, " +
+                "reported_id, time, status, messages) VALUES (?, ?, ?, ?, ?, ?, ?, ?::json)" +
+                (keepExisting ? " ON CONFLICT (guild_id, report_id) DO NOTHING" : ""));
+    }
+
+    private static void setInsert(PreparedStatement ps, long guildId, Report report) throws SQLException {
+        ps.setLong(1, guildId);
+        ps.setInt(2, report.getId());
+        ps.setString(3, report.getMessage());
+        ps.setLong(4, Long.parseLong(report.getReporterId()));
+        ps.setLong(5, Long.parseLong(report.getReportedId()));
+        ps.setTimestamp(6, report.getTime());
+        ps.setString(7, report.getStatus().name());
+        ps.setString(8, GuildGson.GSON.toJson(report.getMessages(), MESSAGES_TYPE));
+    }
+
+    private static Report getReport(ResultSet set) throws SQLException {
+        Report report = new Report(set.getInt("report_id"), set.getString("message"),
+                String.valueOf(set.getLong("reporter_id")), String.valueOf(set.getLong("reported_id")),
+                set.getTimestamp("time"), ReportStatus.valueOf(set.getString("status")));
+        List<ReportMessage> messages = GuildGson.GSON.fromJson(set.getString("messages"), MESSAGES_TYPE);
+        if (messages != null)
+            report.setMessages(messages);
+        return report;
     }
 }
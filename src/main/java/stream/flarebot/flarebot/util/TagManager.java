@@ -0,0 +1,128 @@
+package stream.flarebot.flarebot.util;
+
+import stream.flarebot.flarebot.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tags of a guild, these are stored in the tags table and only read when they are needed. Tag names are always
+ * lower case.
+ */
+public final class TagManager {
+
+    private final long guildId;
+
+    public TagManager(long guildId) {
+        this.guildId = guildId;
+    }
+
+    /**
+     * Get the content of a tag.
+     *
+     * @param name The name of the tag.
+     * @return The content or null if the tag doesn't exist.
+     */
+    public String get(String name) {
+        return DatabaseManager.query("tags.get", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT content FROM tags WHERE guild_id = ? AND tag_name = ?");
+            ps.setLong(1, guildId);
+            ps.setString(2, name.toLowerCase());
+            ResultSet set = ps.executeQuery();
+            return set.next() ? set.getString("content") : null;
+        });
+    }
+
+    public boolean exists(String name) {
+        return get(name) != null;
+    }
+
+    /**
+     * Adds or replaces a tag.
+     *
+     * @param name    The name of the tag.
+     * @param content The content of the tag.
+     */
+    public void set(String name, String content) {
+        DatabaseManager.run("tags.set", conn -> {
+            PreparedStatement ps = conn.prepareStatement("INSERT INTO tags (guild_id, tag_name, content) VALUES (?, ?, ?) " +
+                    "ON CONFLICT (guild_id, tag_name) DO UPDATE SET content = EXCLUDED.content");
+            ps.setLong(1, guildId);
+            ps.setString(2, name.toLowerCase());
+            ps.setString(3, content);
+            ps.executeUpdate();
+        });
+    }
+
+    /**
+     * Removes a tag.
+     *
+     * @param name The name of the tag.
+     * @return If there was a tag to remove.
+     */
+    public boolean remove(String name) {
+        Boolean removed = DatabaseManager.query("tags.remove", conn -> {
+            PreparedStatement ps = conn.prepareStatement("DELETE FROM tags WHERE guild_id = ? AND tag_name = ?");
+            ps.setLong(1, guildId);
+            ps.setString(2, name.toLowerCase());
+            return ps.executeUpdate() > 0;
+        });
+        return removed != null && removed;
+    }
+
+    public int getCount() {
+        Integer count = DatabaseManager.query("tags.count", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM tags WHERE guild_id = ?");
+            ps.setLong(1, guildId);
+            ResultSet set = ps.executeQuery();
+            return set.next() ? set.getInt(1) : 0;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Get a page of tag names in alphabetical order.
+     *
+     * @param page    The page, 0 indexed.
+     * @param perPage The amount of names per page.
+     * @return The names on that page.
+     */
+    public List<String> getNames(int page, int perPage) {
+        List<String> names = new ArrayList<>();
+        DatabaseManager.run("tags.names", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT tag_name FROM tags WHERE guild_id = ? " +
+                    "ORDER BY tag_name LIMIT ? OFFSET ?");
+            ps.setLong(1, guildId);
+            ps.setInt(2, perPage);
+            ps.setInt(3, page * perPage);
+            ResultSet set = ps.executeQuery();
+            while (set.next())
+                names.add(set.getString("tag_name"));
+        });
+        return names;
+    }
+
+    /**
+     * Copy tags which were stored with their guilds into the tags table as one batch, existing tags are kept.
+     *
+     * @param tags The tags of each guild, keyed by the guild ID.
+     */
+    public static void importTags(Connection conn, Map<Long, Map<String, String>> tags) throws SQLException {
+        PreparedStatement ps = conn.prepareStatement("INSERT INTO tags (guild_id, tag_name, content) VALUES (?, ?, ?) " +
+                "ON CONFLICT (guild_id, tag_name) DO NOTHING");
+        for (Map.Entry<Long, Map<String, String>> guild : tags.entrySet()) {
+            for (Map.Entry<String, String> tag : guild.getValue().entrySet()) {
+                ps.setLong(1, guild.getKey());
+                ps.setString(2, tag.getKey().toLowerCase());
+                ps.setString(3, tag.getValue());
+                ps.addBatch();
+            }
+        }
+        ps.executeBatch();
+    }
+}
@@ -0,0 +1,389 @@
+package stream.flarebot.flarebot.util;
+
+import com.google.common.collect.ForwardingCollection;
+import com.google.common.collect.ForwardingIterator;
+import com.google.common.collect.ForwardingList;
+import com.google.common.collect.ForwardingListIterator;
+import com.google.common.collect.ForwardingMap;
+import com.google.common.collect.ForwardingSet;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Views over collections which run a callback whenever they are modified. These are handed out by the getters of
+ * persisted objects so changes made through them are picked up by the dirty tracking without the callers knowing.
+ * Reads go straight to the backing collection.
+ */
+public class TrackedCollections {
+
+    public static <E> Set<E> set(Set<E> delegate, Runnable onChange) {
+        return new TrackedSet<>(delegate, onChange);
+    }
+
+    public static <E> List<E> list(List<E> delegate, Runnable onChange) {
+        return new TrackedList<>(delegate, onChange);
+    }
+
+    public static <E> Collection<E> collection(Collection<E> delegate, Runnable onChange) {
+        return new TrackedCollection<>(delegate, onChange);
+    }
+
+    public static <K, V> Map<K, V> map(Map<K, V> delegate, Runnable onChange) {
+        return new TrackedMap<>(delegate, onChange);
+    }
+
+    private static <E> Iterator<E> iterator(Iterator<E> delegate, Runnable onChange) {
+        return new ForwardingIterator<E>() {
+            @Override
+            protected Iterator<E> delegate() {
+                return delegate;
+            }
+
+            @Override
+            public void remove() {
+                super.remove();
+                onChange.run();
+            }
+        };
+    }
+
+    private static class TrackedCollection<E> extends ForwardingCollection<E> {
+
+        private final Collection<E> delegate;
+        private final Runnable onChange;
+
+        private TrackedCollection(Collection<E> delegate, Runnable onChange) {
+            this.delegate = delegate;
+            this.onChange = onChange;
+        }
+
+        @Override
+        protected Collection<E> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return TrackedCollections.iterator(delegate.iterator(), onChange);
+        }
+
+        @Override
+        public boolean add(E element) {
+            return changed(delegate.add(element));
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> collection) {
+            return changed(delegate.addAll(collection));
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return changed(delegate.remove(object));
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            return changed(delegate.removeAll(collection));
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            return changed(delegate.retainAll(collection));
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            onChange.run();
+        }
+
+        private boolean changed(boolean changed) {
+            if (changed)
+                onChange.run();
+            return changed;
+        }
+    }
+
+    private static class TrackedSet<E> extends ForwardingSet<E> {
+
+        private final Set<E> delegate;
+        private final TrackedCollection<E> tracked;
+
+        private TrackedSet(Set<E> delegate, Runnable onChange) {
+            this.delegate = delegate;
+            this.tracked = new TrackedCollection<>(delegate, onChange);
+        }
+
+        @Override
+        protected Set<E> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return tracked.iterator();
+        }
+
+        @Override
+        public boolean add(E element) {
+            return tracked.add(element);
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> collection) {
+            return tracked.addAll(collection);
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return tracked.remove(object);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            return tracked.removeAll(collection);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            return tracked.retainAll(collection);
+        }
+
+        @Override
+        public void clear() {
+            tracked.clear();
+        }
+    }
+
+    private static class TrackedList<E> extends ForwardingList<E> {
+
+        private final List<E> delegate;
+        private final Runnable onChange;
+        private final TrackedCollection<E> tracked;
+
+        private TrackedList(List<E> delegate, Runnable onChange) {
+            this.delegate = delegate;
+            this.onChange = onChange;
+            this.tracked = new TrackedCollection<>(delegate, onChange);
+        }
+
+        @Override
+        protected List<E> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            return tracked.iterator();
+        }
+
+        @Override
+        public ListIterator<E> listIterator() {
+            return listIterator(0);
+        }
+
+        @Override
+        public ListIterator<E> listIterator(int index) {
+            ListIterator<E> iterator = delegate.listIterator(index);
+            return new ForwardingListIterator<E>() {
+                @Override
+                protected ListIterator<E> delegate() {
+                    return iterator;
+                }
+
+                @Override
+                public void remove() {
+                    super.remove();
+                    onChange.run();
+                }
+
+                @Override
+                public void set(E element) {
+                    super.set(element);
+                    onChange.run();
+                }
+
+                @Override
+                public void add(E element) {
+                    super.add(element);
+                    onChange.run();
+                }
+            };
+        }
+
+        @Override
+        public List<E> subList(int fromIndex, int toIndex) {
+            return new TrackedList<>(delegate.subList(fromIndex, toIndex), onChange);
+        }
+
+        @Override
+        public boolean add(E element) {
+            return tracked.add(element);
+        }
+
+        @Override
+        public void add(int index, E element) {
+            delegate.add(index, element);
+            onChange.run();
+        }
+
+        @Override
+        public boolean addAll(Collection<? extends E> collection) {
+            return tracked.addAll(collection);
+        }
+
+        @Override
+        public boolean addAll(int index, Collection<? extends E> elements) {
+            boolean changed = delegate.addAll(index, elements);
+            if (changed)
+                onChange.run();
+            return changed;
+        }
+
+        @Override
+        public E set(int index, E element) {
+            E old = delegate.set(index, element);
+            onChange.run();
+            return old;
+        }
+
+        @Override
+        public E remove(int index) {
+            E removed = delegate.remove(index);
+            onChange.run();
+            return removed;
+        }
+
+        @Override
+        public boolean remove(Object object) {
+            return tracked.remove(object);
+        }
+
+        @Override
+        public boolean removeAll(Collection<?> collection) {
+            return tracked.removeAll(collection);
+        }
+
+        @Override
+        public boolean retainAll(Collection<?> collection) {
+            return tracked.retainAll(collection);
+        }
+
+        @Override
+        public void clear() {
+            tracked.clear();
+        }
+    }
+
+    private static class TrackedMap<K, V> extends ForwardingMap<K, V> {
+
+        private final Map<K, V> delegate;
+        private final Runnable onChange;
+
+        private TrackedMap(Map<K, V> delegate, Runnable onChange) {
+            this.delegate = delegate;
+            this.onChange = onChange;
+        }
+
+        @Override
+        protected Map<K, V> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            V old = delegate.put(key, value);
+            onChange.run();
+            return old;
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> map) {
+            delegate.putAll(map);
+            onChange.run();
+        }
+
+        @Override
+        public V remove(Object key) {
+            V removed = delegate.remove(key);
+            if (removed != null)
+                onChange.run();
+            return removed;
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            boolean removed = delegate.remove(key, value);
+            if (removed)
+                onChange.run();
+            return removed;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            V old = delegate.putIfAbsent(key, value);
+            if (old == null)
+                onChange.run();
+            return old;
+        }
+
+        @Override
+        public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+            return delegate.computeIfAbsent(key, k -> {
+                V value = mappingFunction.apply(k);
+                if (value != null)
+                    onChange.run();
+                return value;
+            });
+        }
+
+        @Override
+        public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+            V value = delegate.compute(key, remappingFunction);
+            onChange.run();
+            return value;
+        }
+
+        @Override
+        public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+            V merged = delegate.merge(key, value, remappingFunction);
+            onChange.run();
+            return merged;
+        }
+
+        @Override
+        public void replaceAll(BiFunction<? super K, ? super V, ? extends V> function) {
+            delegate.replaceAll(function);
+            onChange.run();
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            onChange.run();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return set(delegate.keySet(), onChange);
+        }
+
+        @Override
+        public Collection<V> values() {
+            return collection(delegate.values(), onChange);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return set(delegate.entrySet(), onChange);
+        }
+    }
+}
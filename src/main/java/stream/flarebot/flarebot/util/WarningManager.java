@@ -0,0 +1,146 @@
+package stream.flarebot.flarebot.util;
+
+import stream.flarebot.flarebot.database.DatabaseManager;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The warnings given out in a guild, these are stored in the warnings table and only read when they are needed.
+ */
+public final class WarningManager {
+
+    private final long guildId;
+
+    public WarningManager(long guildId) {
+        this.guildId = guildId;
+    }
+
+    public void addWarning(long userId, String reason) {
+        DatabaseManager.run("warnings.add", conn -> {
+            PreparedStatement ps = conn.prepareStatement("INSERT INTO warnings (guild_id, user_id, reason, created_at) " +
+                    "VALUES (?, ?, ?, now())");
+            ps.setLong(1, guildId);
+            ps.setLong(2, userId);
+            ps.setString(3, reason);
+            ps.executeUpdate();
+        });
+    }
+
+    public int getCount(long userId) {
+        Integer count = DatabaseManager.query("warnings.count", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT COUNT(*) FROM warnings WHERE guild_id = ? AND user_id = ?");
+            ps.setLong(1, guildId);
+            ps.setLong(2, userId);
+            ResultSet set = ps.executeQuery();
+            return set.next() ? set.getInt(1) : 0;
+        });
+        return count == null ? 0 : count;
+    }
+
+    /**
+     * Get a page of a user's warnings, newest first.
+     *
+     * @param userId  The ID of the user.
+     * @param page    The page, 0 indexed.
+     * @param perPage The amount of warnings per page.
+     * @return The reasons of the warnings on that page.
+     */
+    public List<String> getWarnings(long userId, int page, int perPage) {
+        List<String> warnings = new ArrayList<>();
+        DatabaseManager.run("warnings.page", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT reason FROM warnings WHERE guild_id = ? AND user_id = ? " +
+                    "ORDER BY id DESC LIMIT ? OFFSET ?");
+            ps.setLong(1, guildId);
+            ps.setLong(2, userId);
+            ps.setInt(3, perPage);
+            ps.setInt(4, page * perPage);
+            ResultSet set = ps.executeQuery();
+            while (set.next())
+                warnings.add(set.getString("reason"));
+        });
+        return warnings;
+    }
+
+    /**
+     * Get the totals for the guild, this is all done by the database so no warnings are loaded.
+     *
+     * @return The stats or null if there are no warnings.
+     */
+    public Stats getStats() {
+        return DatabaseManager.query("warnings.stats", conn -> {
+            PreparedStatement ps = conn.prepareStatement("SELECT user_id, COUNT(*) AS warnings, " +
+                    "SUM(COUNT(*)) OVER () AS total, COUNT(*) OVER () AS users FROM warnings WHERE guild_id = ? " +
+                    "GROUP BY user_id ORDER BY warnings DESC LIMIT 1");
+            ps.setLong(1, guildId);
+            ResultSet set = ps.executeQuery();
+            if (!set.next())
+                return null;
+            return new Stats(set.getLong("total"), set.getInt("users"), set.getLong("user_id"), set.getInt("warnings"));
+        });
+    }
+
+    /**
+     * Copy warnings which were stored with their guilds into the warnings table as one batch. Users who already have
+     * imported warnings are skipped so this can run again for the same guild.
+     *
+     * @param warnings The warnings of each guild, keyed by the guild ID.
+     */
+    public static void importWarnings(Connection conn, Map<Long, Map<String, List<String>>> warnings)
+            throws SQLException {
+        // Imported warnings are the only ones without a time, a user with any of those has already been done.
+        PreparedStatement ps = conn.prepareStatement("INSERT INTO warnings (guild_id, user_id, reason) " +
+                "SELECT ?, ?, reason FROM unnest(?::text[]) WITH ORDINALITY AS w(reason, i) " +
+                "WHERE NOT EXISTS (SELECT 1 FROM warnings WHERE guild_id = ? AND user_id = ? AND created_at IS NULL) " +
+                "ORDER BY i");
+        for (Map.Entry<Long, Map<String, List<String>>> guild : warnings.entrySet()) {
+            long guildId = guild.getKey();
+            for (Map.Entry<String, List<String>> entry : guild.getValue().entrySet()) {
+                long userId = Long.parseLong(entry.getKey());
+                ps.setLong(1, guildId);
+                ps.setLong(2, userId);
+                ps.setArray(3, conn.createArrayOf("text", entry.getValue().toArray()));
+                ps.setLong(4, guildId);
+                ps.setLong(5, userId);
+                ps.addBatch();
+            }
+        }
+        ps.executeBatch();
+    }
+
+    public static class Stats {
+
+        private final long total;
+        private final int users;
+        private final long mostWarned;
+        private final int mostWarnings;
+
+        Stats(long total, int users, long mostWarned, int mostWarnings) {
+            this.total = total;
+            this.users = users;
+            this.mostWarned = mostWarned;
+            this.mostWarnings = mostWarnings;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int getUsers() {
+            return users;
+        }
+
+        public long getMostWarned() {
+            return mostWarned;
+        }
+
+        public int getMostWarnings() {
+            return mostWarnings;
+        }
+    }
+}
@@ -22,6 +22,10 @@ public class ButtonGroupConstants {
 
     public static final String REPORTS_LIST = "reports list";
 
+    public static final String TAGS_LIST = "tags list";
+
+    public static final String WARNINGS_LIST = "warnings list";
+
     public static final String REMIND_LIST = "remind list";
 
     public static final String HELP = "help menu";
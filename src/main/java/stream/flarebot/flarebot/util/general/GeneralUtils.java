@@ -34,6 +34,7 @@ import stream.flarebot.flarebot.FlareBot;
 import stream.flarebot.flarebot.Getters;
 import stream.flarebot.flarebot.commands.*;
 import stream.flarebot.flarebot.database.RedisMessage;
+import stream.flarebot.flarebot.database.RedisMessageCodec;
 import stream.flarebot.flarebot.objects.GuildWrapper;
 import stream.flarebot.flarebot.objects.Report;
 import stream.flarebot.flarebot.objects.ReportMessage;
@@ -56,6 +57,7 @@ import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.text.DecimalFormat;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
@@ -343,14 +345,30 @@ public class GeneralUtils {
      * @return The serialised message
      */
     public static String getRedisMessageJson(Message message) {
-        return FlareBot.GSON.toJson(new RedisMessage(
+        return FlareBot.GSON.toJson(newRedisMessage(message));
+    }
+
+    /**
+     * Serialises a message to be stored in Redis in the format set by {@link Config#useBinaryRedisMessages()}.
+     *
+     * @param message The message to serialise
+     * @return The serialised message
+     */
+    public static byte[] getRedisMessageBytes(Message message) {
+        if (Config.INS.useBinaryRedisMessages())
+            return RedisMessageCodec.encode(newRedisMessage(message));
+        return getRedisMessageJson(message).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static RedisMessage newRedisMessage(Message message) {
+        return new RedisMessage(
                 message.getId(),
                 message.getAuthor().getId(),
                 message.getChannel().getId(),
                 message.getGuild().getId(),
                 message.getContentRaw(),
                 message.getCreationTime().toInstant().toEpochMilli()
-        ));
+        );
     }
 
     /**
@@ -1,12 +1,22 @@
 package stream.flarebot.flarebot.util.general;
 
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageInput;
+import com.sedmelluq.discord.lavaplayer.tools.io.MessageOutput;
 import com.sedmelluq.discord.lavaplayer.track.AudioTrack;
+import com.sedmelluq.discord.lavaplayer.track.DecodedTrackHolder;
 import net.dv8tion.jda.core.Permission;
 import net.dv8tion.jda.core.entities.Member;
 import net.dv8tion.jda.core.entities.TextChannel;
+import net.dv8tion.jda.core.entities.User;
 import stream.flarebot.flarebot.Client;
+import stream.flarebot.flarebot.music.VideoThread;
 import stream.flarebot.flarebot.util.MessageUtils;
 
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
 import java.util.regex.Pattern;
 
 public class MusicUtils {
@@ -64,4 +74,54 @@ public class MusicUtils {
             Client.instance().getPlayer(guildId).stopTrack();
         }
     }
+
+    /**
+     * Queues tracks for a guild, the first one starts playing if nothing is playing already.
+     *
+     * @param guildId The guild to queue the tracks in
+     * @param user    The {@link User} who requested the tracks
+     * @param tracks  The tracks to queue
+     */
+    public static void queueTracks(String guildId, User user, List<AudioTrack> tracks) {
+        if (tracks.isEmpty()) return;
+        tracks.forEach(track -> track.setUserData(user.getId()));
+        if (Client.instance().getPlayer(guildId).getPlayingTrack() != null) {
+            Client.instance().getTracks(guildId).addAll(tracks);
+        } else {
+            Client.instance().getPlayer(guildId).playTrack(tracks.get(0));
+            Client.instance().getTracks(guildId).addAll(tracks.subList(1, tracks.size()));
+        }
+    }
+
+    /**
+     * Encodes a track with lavaplayer so it can be stored and played again without looking it up.
+     *
+     * @param track The track to encode, its position is stored as well
+     * @return The encoded track
+     * @throws IOException If the track could not be encoded
+     */
+    public static byte[] encodeTrack(AudioTrack track) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MessageOutput output = new MessageOutput(out);
+        VideoThread.getPlayerManager().encodeTrack(output, track);
+        output.finish();
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes a track encoded with {@link #encodeTrack(AudioTrack)}.
+     *
+     * @param data The encoded track
+     * @return The track or null if it can't be decoded, for example if its source has been disabled
+     */
+    @Nullable
+    public static AudioTrack decodeTrack(byte[] data) {
+        try {
+            DecodedTrackHolder holder = VideoThread.getPlayerManager()
+                    .decodeTrack(new MessageInput(new ByteArrayInputStream(data)));
+            return holder == null ? null : holder.decodedTrack;
+        } catch (IOException e) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,39 @@
+package stream.flarebot.flarebot.util.general;
+
+import java.util.Collection;
+
+/**
+ * Rough estimates of how much heap objects retain. These assume a 64 bit JVM with compressed oops and are only
+ * meant to compare objects with each other, like for weighing cache entries.
+ */
+public class SizeUtils {
+
+    /**
+     * Object header plus a few fields.
+     */
+    public static final int OBJECT_SIZE = 32;
+    /**
+     * A hash map node or list slot including the boxed or wrapper object it points to.
+     */
+    public static final int ENTRY_SIZE = 48;
+
+    private static final int STRING_SIZE = 40;
+
+    public static int estimate(String s) {
+        return s == null ? 0 : STRING_SIZE + s.length() * 2;
+    }
+
+    /**
+     * Estimate a collection of strings, numbers or enums.
+     *
+     * @param collection The collection, can be null.
+     * @return The estimated size in bytes.
+     */
+    public static int estimate(Collection<?> collection) {
+        if (collection == null) return 0;
+        int size = OBJECT_SIZE;
+        for (Object o : collection)
+            size += ENTRY_SIZE + (o instanceof String ? estimate((String) o) : 0);
+        return size;
+    }
+}
@@ -0,0 +1,41 @@
+package stream.flarebot.flarebot.util.pagination;
+
+import java.util.Collections;
+import java.util.function.IntFunction;
+
+/**
+ * A {@link PaginationList} which only creates a page when it is shown. This is for lists which are too big to load
+ * at once, like ones which are read from the database a page at a time.
+ */
+public class LazyPaginationList extends PaginationList<String> {
+
+    private final int pages;
+    private final IntFunction<String> loader;
+
+    /**
+     * Creates a LazyPaginationList
+     *
+     * @param pages  The amount of pages
+     * @param loader Creates the page for a position, this is called every time the page is shown
+     */
+    public LazyPaginationList(int pages, IntFunction<String> loader) {
+        super(Collections.emptyList());
+        this.pages = Math.max(pages, 1);
+        this.loader = loader;
+    }
+
+    @Override
+    public int getPages() {
+        return pages;
+    }
+
+    @Override
+    public String getPage(int page) {
+        return loader.apply(page);
+    }
+
+    @Override
+    public boolean isLazy() {
+        return true;
+    }
+}
@@ -161,6 +161,15 @@ public class PagedEmbedBuilder<T> {
             return pageEmbed.build();
         }
 
+        /**
+         * Gets whether creating a page can be slow, see {@link PaginationList#isLazy()}.
+         *
+         * @return if creating a page can be slow.
+         */
+        public boolean isLazy() {
+            return list.isLazy();
+        }
+
         /**
          * Gets weather or not this is single paged.
          *
@@ -109,11 +109,43 @@ public class PagedTableBuilder {
      * @return {@link PaginationList} for use in sending a paged message.
      */
     public PaginationList<String> build() {
-        int padding = 1;
-        int[] widths = new int[header.size()];
-        for (int i = 0; i < widths.length; i++) {
-            widths[i] = 0;
+        int[] widths = getWidths();
+        String formatLine = getFormatLine(widths);
+        StringBuilder bodyBuilder = new StringBuilder();
+        for (List<String> row : body) {
+            bodyBuilder.append(String.format(formatLine, row.toArray()));
         }
+        String bodyString = bodyBuilder.toString();
+        List<String> pages = new ArrayList<>();
+        String[] lines = bodyString.split("\n");
+        int pagesCount = Math.max((int) Math.ceil((double) lines.length / rows), 1);
+        for (int i = 0; i < pagesCount; i++) {
+            String[] page = ArrayUtils.subarray(lines, rows * i, (rows * i) + rows);
+            pages.add(buildPage(page, widths, formatLine, i, pagesCount));
+        }
+        return new PaginationList<>(pages);
+    }
+
+    /**
+     * Builds a single page out of all the rows which have been added, for tables which are loaded a page at a time.
+     * See {@link LazyPaginationList}.
+     *
+     * @param page      The page number, 0 indexed.
+     * @param pageTotal The total amount of pages.
+     * @return The page.
+     */
+    public String buildPage(int page, int pageTotal) {
+        int[] widths = getWidths();
+        String formatLine = getFormatLine(widths);
+        String[] lines = new String[body.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = String.format(formatLine, body.get(i).toArray()).trim();
+        }
+        return buildPage(lines, widths, formatLine, page, pageTotal);
+    }
+
+    private int[] getWidths() {
+        int[] widths = new int[header.size()];
         for (int i = 0; i < header.size(); i++) {
             if (header.get(i).length() > widths[i]) {
                 widths[i] = header.get(i).length();
@@ -127,38 +159,34 @@ public class PagedTableBuilder {
                 }
             }
         }
+        return widths;
+    }
+
+    private String getFormatLine(int[] widths) {
         StringBuilder formatLine = new StringBuilder("|");
         for (int width : widths) {
             formatLine.append(" %-").append(width).append("s |");
         }
         formatLine.append("\n");
-        String headerString = String.format(formatLine.toString(), header.toArray());
-        StringBuilder bodyBuilder = new StringBuilder();
-        for (List<String> row : body) {
-            bodyBuilder.append(String.format(formatLine.toString(), row.toArray()));
+        return formatLine.toString();
+    }
+
+    private String buildPage(String[] lines, int[] widths, String formatLine, int page, int pageTotal) {
+        int padding = 1;
+        StringBuilder sb = new StringBuilder();
+        sb.append("```\n");
+        sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
+        sb.append(String.format(formatLine, header.toArray()));
+        sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
+        for (String line : lines) {
+            sb.append(line).append("\n");
         }
-        String bodyString = bodyBuilder.toString();
-        List<String> pages = new ArrayList<>();
-        String[] lines = bodyString.split("\n");
-        int pagesCount = Math.max((int) Math.ceil((double) lines.length / rows), 1);
-        for (int i = 0; i < pagesCount; i++) {
-            String[] page = ArrayUtils.subarray(lines, rows * i, (rows * i) + rows);
-            StringBuilder sb = new StringBuilder();
-            sb.append("```\n");
-            sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
-            sb.append(headerString);
-            sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
-            for (String line : page) {
-                sb.append(line).append("\n");
-            }
-            sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
-            if (pageCounts) {
-                sb.append(MessageUtils.getFooter("Page: " + (i + 1) + "/" + pagesCount, padding, widths));
-            }
-            sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
-            sb.append("\n```");
-            pages.add(sb.toString());
+        sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
+        if (pageCounts) {
+            sb.append(MessageUtils.getFooter("Page: " + (page + 1) + "/" + pageTotal, padding, widths));
         }
-        return new PaginationList<>(pages);
+        sb.append(MessageUtils.appendSeparatorLine("+", "+", "+", padding, widths));
+        sb.append("\n```");
+        return sb.toString();
     }
 }
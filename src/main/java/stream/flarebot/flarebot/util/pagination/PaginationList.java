@@ -54,8 +54,8 @@ public class PaginationList<T> {
         int groupNum = (int)Math.ceil((double)getPages() / (double)groupSize);
         for (int i = 0; i < groupNum; i++) {
             int start = groupSize * (i);
-            int end = Math.min(start + groupSize, list.size());
-            groups.add(new PageGroup(list.subList(start, end)));
+            int end = Math.min(start + groupSize, getPages());
+            groups.add(new PageGroup(start, end));
         }
         this.groups = groups;
     }
@@ -70,6 +70,16 @@ public class PaginationList<T> {
         return list.get(page).toString();
     }
 
+    /**
+     * Tells if creating a page can be slow, like when it is read from the database, so it shouldn't be done on the
+     * event thread.
+     *
+     * @return if creating a page can be slow
+     */
+    public boolean isLazy() {
+        return false;
+    }
+
     /**
      * Tells if this list has groups
      *
@@ -100,15 +110,18 @@ public class PaginationList<T> {
 
     public class PageGroup {
 
-        private List<T> group;
+        private final int start;
+        private final int end;
 
         /**
          * Makes a new PageGroup
          *
-         * @param group The list of the group.
+         * @param start The position of the first page in the group.
+         * @param end   The position after the last page in the group.
          */
-        public PageGroup(List<T> group) {
-            this.group = group;
+        public PageGroup(int start, int end) {
+            this.start = start;
+            this.end = end;
         }
 
         /**
@@ -119,8 +132,8 @@ public class PaginationList<T> {
          */
         public String getGroupAsString() {
             StringBuilder builder = new StringBuilder();
-            for (T page : group) {
-                builder.append(page.toString()).append("\n");
+            for (int page = start; page < end; page++) {
+                builder.append(getPage(page)).append("\n");
             }
             return builder.toString();
         }
@@ -132,7 +145,7 @@ public class PaginationList<T> {
          * @return The page as a String
          */
         public String getPageInGroup(int pos) {
-            return list.get(pos).toString();
+            return getPage(pos);
         }
     }
 }
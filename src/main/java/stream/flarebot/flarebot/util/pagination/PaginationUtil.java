@@ -1,9 +1,11 @@
 package stream.flarebot.flarebot.util.pagination;
 
 import net.dv8tion.jda.core.Permission;
+import net.dv8tion.jda.core.entities.Message;
 import net.dv8tion.jda.core.entities.TextChannel;
 import net.dv8tion.jda.core.entities.User;
 import org.apache.commons.lang3.ArrayUtils;
+import stream.flarebot.flarebot.database.DatabaseManager;
 import stream.flarebot.flarebot.util.MessageUtils;
 import stream.flarebot.flarebot.util.buttons.ButtonUtil;
 import stream.flarebot.flarebot.util.objects.ButtonGroup;
@@ -69,26 +71,26 @@ public class PaginationUtil {
             buttonGroup.addButton(new ButtonGroup.Button("\u23EE", (ownerID, user, message) -> {
                 //Start
                 pages[0] = 0;
-                message.editMessage(list.getPage(pages[0])).queue();
+                showPage(message, list, pages[0]);
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23EA", (ownerID, user, message) -> {
                 //Prev
                 if (pages[0] != 0) {
                     pages[0] -= 1;
-                    message.editMessage(list.getPage(pages[0])).queue();
+                    showPage(message, list, pages[0]);
                 }
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23E9", (ownerID, user, message) -> {
                 //Next
                 if (pages[0] + 1 != list.getPages()) {
                     pages[0] += 1;
-                    message.editMessage(list.getPage(pages[0])).queue();
+                    showPage(message, list, pages[0]);
                 }
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23ED", (ownerID, user, message) -> {
                 //Last
                 pages[0] = list.getPages() - 1;
-                message.editMessage(list.getPage(pages[0])).queue();
+                showPage(message, list, pages[0]);
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u274C", (ownerID, user, message) -> {
                 // Delete
@@ -126,26 +128,26 @@ public class PaginationUtil {
             buttonGroup.addButton(new ButtonGroup.Button("\u23EE", (ownerID, user, message) -> {
                 //Start
                 pages[0] = 0;
-                message.editMessage(pagedEmbed.getEmbed(pages[0])).queue();
+                showPage(message, pagedEmbed, pages[0]);
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23EA", (ownerID, user, message) -> {
                 //Prev
                 if (pages[0] != 0) {
                     pages[0] -= 1;
-                    message.editMessage(pagedEmbed.getEmbed(pages[0])).queue();
+                    showPage(message, pagedEmbed, pages[0]);
                 }
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23E9", (ownerID, user, message) -> {
                 //Next
                 if (pages[0] + 1 != pagedEmbed.getPageTotal()) {
                     pages[0] += 1;
-                    message.editMessage(pagedEmbed.getEmbed(pages[0])).queue();
+                    showPage(message, pagedEmbed, pages[0]);
                 }
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u23ED", (ownerID, user, message) -> {
                 //Last
                 pages[0] = pagedEmbed.getPageTotal() - 1;
-                message.editMessage(pagedEmbed.getEmbed(pages[0])).queue();
+                showPage(message, pagedEmbed, pages[0]);
             }));
             buttonGroup.addButton(new ButtonGroup.Button("\u274C", (ownerID, user, message) -> {
                 // Delete
@@ -163,6 +165,21 @@ public class PaginationUtil {
         }
     }
 
+    private static void showPage(Message message, PaginationList list, int page) {
+        // Lazy pages can be read from the database, that shouldn't hold up the event thread the buttons run on.
+        if (list.isLazy())
+            DatabaseManager.getExecutor().execute(() -> message.editMessage(list.getPage(page)).queue());
+        else
+            message.editMessage(list.getPage(page)).queue();
+    }
+
+    private static void showPage(Message message, PagedEmbedBuilder.PagedEmbed pagedEmbed, int page) {
+        if (pagedEmbed.isLazy())
+            DatabaseManager.getExecutor().execute(() -> message.editMessage(pagedEmbed.getEmbed(page)).queue());
+        else
+            message.editMessage(pagedEmbed.getEmbed(page)).queue();
+    }
+
     /**
      * This is a sub-enum used to determine how the content will be split and displayed in pages.
      */
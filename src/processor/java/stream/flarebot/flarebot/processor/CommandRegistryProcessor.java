@@ -0,0 +1,120 @@
+package stream.flarebot.flarebot.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Generates {@code stream.flarebot.flarebot.commands.CommandRegistry} which creates every command, so the
+ * CommandManager doesn't have to scan the classpath on startup.
+ * <p>
+ * Every concrete class in {@link #COMMANDS_PACKAGE} which implements {@link #COMMAND} is included, just like the
+ * Reflections scan used to find. Commands need a public constructor without arguments, anything else is a compile
+ * error instead of failing on startup.
+ */
+@SupportedAnnotationTypes("*")
+public class CommandRegistryProcessor extends AbstractProcessor {
+
+    private static final String COMMAND = "stream.flarebot.flarebot.commands.Command";
+    private static final String COMMANDS_PACKAGE = "stream.flarebot.flarebot.commands.commands";
+    private static final String REGISTRY_PACKAGE = "stream.flarebot.flarebot.commands";
+    private static final String REGISTRY = "CommandRegistry";
+
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        // Every command is a source file so they are all in the first round, later rounds only have generated code.
+        if (generated || roundEnv.processingOver()) return false;
+        TypeElement command = processingEnv.getElementUtils().getTypeElement(COMMAND);
+        if (command == null) return false;
+        generated = true;
+
+        Set<String> commands = new TreeSet<>();
+        for (Element element : roundEnv.getRootElements())
+            collect(element, command.asType(), commands);
+        write(commands);
+        // Not claiming anything, other processors still see every annotation.
+        return false;
+    }
+
+    private void collect(Element element, TypeMirror command, Set<String> commands) {
+        if (!element.getKind().isClass() && !element.getKind().isInterface()) return;
+        TypeElement type = (TypeElement) element;
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements()))
+            if (nested.getModifiers().contains(Modifier.STATIC))
+                collect(nested, command, commands);
+
+        if (type.getKind() != ElementKind.CLASS || type.getModifiers().contains(Modifier.ABSTRACT)) return;
+        if (!type.getQualifiedName().toString().startsWith(COMMANDS_PACKAGE + ".")) return;
+        if (!processingEnv.getTypeUtils().isAssignable(type.asType(), command)) return;
+
+        if (!type.getModifiers().contains(Modifier.PUBLIC) || !hasPublicNoArgsConstructor(type)) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Commands need to be public with a public constructor without arguments", type);
+            return;
+        }
+        commands.add(type.getQualifiedName().toString());
+    }
+
+    private boolean hasPublicNoArgsConstructor(TypeElement type) {
+        // A class without constructors gets a default one with the same access as the class.
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty())
+                return constructor.getModifiers().contains(Modifier.PUBLIC);
+        }
+        return false;
+    }
+
+    private void write(Set<String> commands) {
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY);
+            try (PrintWriter out = new PrintWriter(file.openWriter())) {
+                out.println("package " + REGISTRY_PACKAGE + ";");
+                out.println();
+                out.println("import java.util.ArrayList;");
+                out.println("import java.util.List;");
+                out.println();
+                out.println("/**");
+                out.println(" * Generated by " + getClass().getName() + ", do not edit.");
+                out.println(" */");
+                out.println("final class " + REGISTRY + " {");
+                out.println();
+                out.println("    static final int SIZE = " + commands.size() + ";");
+                out.println();
+                out.println("    private " + REGISTRY + "() {");
+                out.println("    }");
+                out.println();
+                out.println("    static List<Command> createCommands() {");
+                out.println("        List<Command> commands = new ArrayList<>(SIZE);");
+                for (String command : commands)
+                    out.println("        commands.add(new " + command + "());");
+                out.println("        return commands;");
+                out.println("    }");
+                out.println("}");
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Failed to write the command registry: "
+                    + e.getMessage());
+        }
+    }
+}